@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Аргументы вида "--имя значение" для утилит модуля.
+final class Arguments {
+
+    private final Map<String, String> options = new HashMap<>();
+
+    Arguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Ожидался параметр вида --имя, получено " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+    }
+
+    boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,19 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Принимает обычные аргументы JMH (например, "TaskManagerBenchmark -p boardSize=1000")
+// и всегда добавляет профилировщик GC, чтобы в отчёте были gc.alloc.rate и gc.alloc.rate.norm.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.InMemoryTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Детерминированные доски для бенчмарков. Окна задач идут слотами по 15 минут и не пересекаются,
+// поэтому проверка пересечения по времени никогда не бросает исключение.
+final class Boards {
+
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final Duration SLOT = Duration.ofMinutes(15);
+    static final Duration TASK_DURATION = Duration.ofMinutes(10);
+    static final int SUBTASKS_PER_EPIC = 9;
+
+    private Boards() {
+    }
+
+    static LocalDateTime slot(long number) {
+        return START.plus(SLOT.multipliedBy(number));
+    }
+
+    // Половина доски — задачи, половина — эпики по SUBTASKS_PER_EPIC подзадач.
+    // У каждого пятого элемента нет окна, остальные занимают слоты 0..size-1.
+    static InMemoryTaskManager mixed(int size) {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int taskCount = size / 2;
+        for (int i = 0; i < taskCount; i++) {
+            manager.createTask(i % 5 == 0
+                    ? new Task("Задача " + i, "Описание")
+                    : new Task("Задача " + i, "Описание", TaskStatus.NEW, TASK_DURATION, slot(i)));
+        }
+        int created = taskCount;
+        while (created < size) {
+            Epic epic = new Epic("Эпик " + created, "Описание");
+            manager.createEpic(epic);
+            created++;
+            for (int j = 0; j < SUBTASKS_PER_EPIC && created < size; j++, created++) {
+                manager.createSubtask(subtask(epic.getId(), created, created % 5 == 0 ? -1 : created));
+            }
+        }
+        return manager;
+    }
+
+    static Subtask subtask(int epicId, int number, long slot) {
+        if (slot < 0) {
+            return new Subtask("Подзадача " + number, "Описание", epicId);
+        }
+        return new Subtask("Подзадача " + number, "Описание", 0, TaskStatus.NEW, epicId, slot(slot), TASK_DURATION);
+    }
+}
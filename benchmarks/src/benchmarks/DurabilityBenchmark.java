@@ -0,0 +1,58 @@
+package benchmarks;
+
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import service.DurabilityMode;
+import service.JournaledTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность createTask в JournaledTaskManager при каждом DurabilityMode в 1 и 16 потоков.
+// Каждая итерация начинается с пустого журнала, иначе он рос бы от итерации к итерации.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class DurabilityBenchmark {
+
+    @Param({"NONE", "FSYNC_PER_WRITE", "GROUP_COMMIT"})
+    public DurabilityMode durabilityMode;
+
+    private File directory;
+    private JournaledTaskManager manager;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("kanban-durability").toFile();
+        manager = JournaledTaskManager.loadFromFile(new File(directory, "tasks.csv"), durabilityMode);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        manager.close();
+        PersistenceBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Task createTask1Thread() {
+        return createTask();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Task createTask16Threads() {
+        return createTask();
+    }
+
+    private Task createTask() {
+        Task task = new Task("Новая задача", "Описание");
+        manager.createTask(task);
+        return task;
+    }
+}
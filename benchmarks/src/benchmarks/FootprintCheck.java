@@ -0,0 +1,106 @@
+package benchmarks;
+
+import service.InMemoryTaskManager;
+import util.IntArrayList;
+import util.IntObjectHashMap;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Удерживаемая куча доски без JMH. Строит Boards.mixed(size) и меряет, на сколько выросла занятая куча
+ * после полной сборки мусора, пока доска достижима.
+ * <p>
+ * Отдельно на тех же числах сравниваются индексы по id: HashMap&lt;Integer, Object&gt; против IntObjectHashMap
+ * на всех элементах доски и ArrayList&lt;Integer&gt; против IntArrayList для списков подзадач эпиков.
+ * Значения в таблицах — один общий объект, так что в разницу входят только упаковка, узлы и массивы.
+ * <p>
+ * Цифры стабильнее с -XX:+UseSerialGC. Аргументы: [--size 1000000]
+ */
+public class FootprintCheck {
+
+    private static final Object VALUE = new Object();
+    private static final double MB = 1024 * 1024;
+
+    public static void main(String[] args) {
+        int size = new Arguments(args).getInt("size", 1_000_000);
+        int epics = (size - size / 2 + Boards.SUBTASKS_PER_EPIC) / (Boards.SUBTASKS_PER_EPIC + 1);
+
+        System.out.printf("%-36s %10s%n", "структура", "МБ");
+        print("InMemoryTaskManager (" + size + ")", retained(() -> Boards.mixed(size)));
+        print("HashMap<Integer, Object>", retained(() -> boxedMap(size)));
+        print("IntObjectHashMap", retained(() -> primitiveMap(size)));
+        print("ArrayList<Integer> x" + epics, retained(() -> boxedLists(epics)));
+        print("IntArrayList x" + epics, retained(() -> primitiveLists(epics)));
+    }
+
+    private static void print(String name, long bytes) {
+        System.out.printf(Locale.ROOT, "%-36s %10.1f%n", name, bytes / MB);
+    }
+
+    private static long retained(Supplier<?> factory) {
+        long before = usedAfterGc();
+        Object structure = factory.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(structure);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Одной System.gc() бывает мало: часть мусора доживает до следующей сборки.
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static Map<Integer, Object> boxedMap(int size) {
+        Map<Integer, Object> map = new HashMap<>();
+        for (int id = 1; id <= size; id++) {
+            map.put(id, VALUE);
+        }
+        return map;
+    }
+
+    private static IntObjectHashMap<Object> primitiveMap(int size) {
+        IntObjectHashMap<Object> map = new IntObjectHashMap<>();
+        for (int id = 1; id <= size; id++) {
+            map.put(id, VALUE);
+        }
+        return map;
+    }
+
+    private static List<List<Integer>> boxedLists(int count) {
+        List<List<Integer>> lists = new ArrayList<>(count);
+        int id = count;
+        for (int i = 0; i < count; i++) {
+            List<Integer> list = new ArrayList<>();
+            for (int j = 0; j < Boards.SUBTASKS_PER_EPIC; j++) {
+                list.add(++id);
+            }
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    private static List<IntArrayList> primitiveLists(int count) {
+        List<IntArrayList> lists = new ArrayList<>(count);
+        int id = count;
+        for (int i = 0; i < count; i++) {
+            IntArrayList list = new IntArrayList();
+            for (int j = 0; j < Boards.SUBTASKS_PER_EPIC; j++) {
+                list.add(++id);
+            }
+            lists.add(list);
+        }
+        return lists;
+    }
+}
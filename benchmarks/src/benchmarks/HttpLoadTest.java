@@ -0,0 +1,335 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import http.HttpTaskServer;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Нагрузочный тест HttpTaskServer. Поднимает сервер с ConcurrentTaskManager на локальном порту,
+ * заполняет его доской SyntheticBoard и запускает клиентов в виртуальных потоках. Каждый клиент
+ * выбирает операцию случайно по весам из --mix и сразу отправляет следующий запрос, как только
+ * получен ответ. После прогрева печатает по каждой операции число запросов, ошибки (ответы
+ * не 2xx), пропускную способность и перцентили p50/p99/p999 задержки.
+ * <p>
+ * Аргументы: [--clients 64] [--seconds 30] [--warmup-seconds 5] [--board 10000] [--port 8080]
+ * [--mix getTask=30,getTasks=5,...] — операции без веса в --mix не выполняются.
+ */
+public class HttpLoadTest {
+
+    private static final Pattern CREATED_ID = Pattern.compile("id (\\d+)");
+
+    enum Operation {
+        GET_TASKS("getTasks", 5),
+        GET_TASK("getTask", 25),
+        POST_TASK("postTask", 5),
+        PUT_TASK("putTask", 5),
+        DELETE_TASK("deleteTask", 3),
+        GET_EPICS("getEpics", 2),
+        GET_EPIC("getEpic", 10),
+        GET_EPIC_SUBTASKS("getEpicSubtasks", 5),
+        POST_EPIC("postEpic", 2),
+        DELETE_EPIC("deleteEpic", 1),
+        GET_SUBTASKS("getSubtasks", 2),
+        GET_SUBTASK("getSubtask", 15),
+        POST_SUBTASK("postSubtask", 4),
+        DELETE_SUBTASK("deleteSubtask", 2),
+        GET_HISTORY("getHistory", 8),
+        GET_PRIORITIZED("getPrioritized", 6);
+
+        final String key;
+        final int defaultWeight;
+
+        Operation(String key, int defaultWeight) {
+            this.key = key;
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    private static final class Board {
+        final int[] taskIds;
+        final int[] epicIds;
+        final int[] subtaskIds;
+
+        Board(List<Task> tasks) {
+            taskIds = ids(tasks, TaskType.TASK);
+            epicIds = ids(tasks, TaskType.EPIC);
+            subtaskIds = ids(tasks, TaskType.SUBTASK);
+        }
+
+        private static int[] ids(List<Task> tasks, TaskType type) {
+            return tasks.stream().filter(task -> task.getType() == type).mapToInt(Task::getId).toArray();
+        }
+    }
+
+    // Состояние одного клиента: он удаляет и обновляет только то, что создал сам,
+    // чтобы не выбивать из-под других клиентов задачи общей доски.
+    private static final class Client implements Runnable {
+        final HttpClient http;
+        final Gson gson;
+        final String baseUrl;
+        final Board board;
+        final Operation[] operations;
+        final int[] cumulativeWeights;
+        final SplittableRandom random;
+        final long measureFrom;
+        final long deadline;
+        final EnumMap<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        final EnumMap<Operation, Long> errors = new EnumMap<>(Operation.class);
+        final Deque<Integer> ownTasks = new ArrayDeque<>();
+        final Deque<Integer> ownEpics = new ArrayDeque<>();
+        final Deque<Integer> ownSubtasks = new ArrayDeque<>();
+        final String clientId;
+
+        Client(int number, HttpClient http, Gson gson, String baseUrl, Board board, Map<Operation, Integer> mix,
+               long measureFrom, long deadline) {
+            this.http = http;
+            this.gson = gson;
+            this.baseUrl = baseUrl;
+            this.board = board;
+            this.operations = mix.keySet().toArray(new Operation[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += mix.get(operations[i]);
+                cumulativeWeights[i] = sum;
+            }
+            this.random = new SplittableRandom(number);
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            this.clientId = "load-" + number;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+                errors.put(operation, 0L);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                Operation operation = next();
+                HttpRequest request = request(operation);
+                long start = System.nanoTime();
+                int status;
+                String body;
+                try {
+                    HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                    status = response.statusCode();
+                    body = response.body();
+                } catch (IOException e) {
+                    status = -1;
+                    body = "";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long finish = System.nanoTime();
+                remember(operation, status, body);
+                if (start >= measureFrom) {
+                    latencies.get(operation).record((finish - start) / 1000);
+                    if (status < 200 || status >= 300) {
+                        errors.merge(operation, 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        private Operation next() {
+            int point = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (point < cumulativeWeights[i]) {
+                    return substitute(operations[i]);
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        // Если своих объектов для удаления или обновления ещё нет, сначала создаём.
+        private Operation substitute(Operation operation) {
+            return switch (operation) {
+                case PUT_TASK, DELETE_TASK -> ownTasks.isEmpty() ? Operation.POST_TASK : operation;
+                case DELETE_EPIC -> ownEpics.isEmpty() ? Operation.POST_EPIC : operation;
+                case DELETE_SUBTASK -> ownSubtasks.isEmpty() ? Operation.POST_SUBTASK : operation;
+                default -> operation;
+            };
+        }
+
+        private HttpRequest request(Operation operation) {
+            return switch (operation) {
+                case GET_TASKS -> get("/tasks");
+                case GET_TASK -> get("/tasks/" + pick(board.taskIds));
+                case POST_TASK -> post("/tasks", gson.toJson(new Task("Задача " + clientId, "Нагрузочный тест")));
+                case PUT_TASK -> put("/tasks", gson.toJson(new Task("Задача " + clientId, "Обновлена",
+                        ownTasks.peekLast(), TaskStatus.IN_PROGRESS)));
+                case DELETE_TASK -> delete("/tasks/" + ownTasks.pollFirst());
+                case GET_EPICS -> get("/epics");
+                case GET_EPIC -> get("/epics/" + pick(board.epicIds));
+                case GET_EPIC_SUBTASKS -> get("/epics/" + pick(board.epicIds) + "/subtasks");
+                case POST_EPIC -> post("/epics", gson.toJson(new Epic("Эпик " + clientId, "Нагрузочный тест")));
+                case DELETE_EPIC -> delete("/epics/" + ownEpics.pollFirst());
+                case GET_SUBTASKS -> get("/subtasks");
+                case GET_SUBTASK -> get("/subtasks/" + pick(board.subtaskIds));
+                case POST_SUBTASK -> post("/subtasks", gson.toJson(
+                        new Subtask("Подзадача " + clientId, "Нагрузочный тест", pick(board.epicIds))));
+                case DELETE_SUBTASK -> delete("/subtasks/" + ownSubtasks.pollFirst());
+                case GET_HISTORY -> get("/history");
+                case GET_PRIORITIZED -> get("/prioritized");
+            };
+        }
+
+        private void remember(Operation operation, int status, String body) {
+            if (status != 201) {
+                return;
+            }
+            Matcher matcher = CREATED_ID.matcher(body);
+            if (!matcher.find()) {
+                return;
+            }
+            int id = Integer.parseInt(matcher.group(1));
+            switch (operation) {
+                case POST_TASK -> ownTasks.addLast(id);
+                case POST_EPIC -> ownEpics.addLast(id);
+                case POST_SUBTASK -> ownSubtasks.addLast(id);
+                default -> {
+                }
+            }
+        }
+
+        private int pick(int[] ids) {
+            return ids[random.nextInt(ids.length)];
+        }
+
+        private HttpRequest.Builder builder(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("X-Client-Id", clientId);
+        }
+
+        private HttpRequest get(String path) {
+            return builder(path).GET().build();
+        }
+
+        private HttpRequest post(String path, String json) {
+            return builder(path).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+        private HttpRequest put(String path, String json) {
+            return builder(path).PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+        private HttpRequest delete(String path) {
+            return builder(path).DELETE().build();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        int clients = arguments.getInt("clients", 64);
+        int seconds = arguments.getInt("seconds", 30);
+        int warmupSeconds = arguments.getInt("warmup-seconds", 5);
+        int boardSize = arguments.getInt("board", 10_000);
+        int port = arguments.getInt("port", HttpTaskServer.DEFAULT_PORT);
+        Map<Operation, Integer> mix = parseMix(arguments.get("mix", null));
+
+        TaskManager manager = Managers.getConcurrent();
+        List<Task> tasks = SyntheticBoard.generate(boardSize);
+        SyntheticBoard.apply(manager, tasks);
+        Board board = new Board(tasks);
+
+        HttpTaskServer server = new HttpTaskServer(manager, port, HttpTaskServer.virtualThreadExecutor(), 1024);
+        server.start();
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder()
+                .executor(clientThreads)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        try {
+            long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+            long deadline = measureFrom + Duration.ofSeconds(seconds).toNanos();
+            List<Client> started = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(i, http, server.getGson(), "http://localhost:" + port, board, mix,
+                        measureFrom, deadline);
+                started.add(client);
+                threads.add(Thread.ofVirtual().name("load-client-" + i).start(client));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            report(started, seconds, clients, boardSize);
+        } finally {
+            server.stop();
+            clientThreads.shutdown();
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        if (mix == null) {
+            for (Operation operation : Operation.values()) {
+                weights.put(operation, operation.defaultWeight);
+            }
+            return weights;
+        }
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(candidate -> candidate.key.equals(parts[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Неизвестная операция " + parts[0]));
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("В --mix нет ни одной операции с положительным весом");
+        }
+        return weights;
+    }
+
+    private static void report(List<Client> clients, int seconds, int clientCount, int boardSize) {
+        System.out.printf("Клиентов: %d, доска: %d, замер: %d с%n", clientCount, boardSize, seconds);
+        System.out.printf("%-16s %9s %7s %10s %9s %9s %9s %9s%n",
+                "операция", "запросов", "ошибок", "запр/с", "p50, мс", "p99, мс", "p999, мс", "max, мс");
+        LatencyHistogram overall = new LatencyHistogram();
+        long overallErrors = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            long errors = 0;
+            for (Client client : clients) {
+                histogram.add(client.latencies.get(operation));
+                errors += client.errors.get(operation);
+            }
+            if (histogram.count() == 0) {
+                continue;
+            }
+            overall.add(histogram);
+            overallErrors += errors;
+            printRow(operation.key, histogram, errors, seconds);
+        }
+        printRow("всего", overall, overallErrors, seconds);
+    }
+
+    private static void printRow(String name, LatencyHistogram histogram, long errors, int seconds) {
+        System.out.printf(Locale.ROOT, "%-16s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.count(),
+                errors, histogram.count() / (double) seconds, histogram.percentile(50) / 1000.0,
+                histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0, histogram.max() / 1000.0);
+    }
+}
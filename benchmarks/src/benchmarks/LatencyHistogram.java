@@ -0,0 +1,72 @@
+package benchmarks;
+
+// Гистограмма задержек в микросекундах с логарифмическими корзинами: до 64 мкс точное значение,
+// дальше в каждой степени двойки 32 корзины, то есть погрешность перцентиля не больше ~3%.
+// Не потокобезопасна: у каждого клиента своя, в конце они складываются через add.
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    private final long[] counts = new long[LINEAR_LIMIT + (64 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    void record(long micros) {
+        counts[bucket(Math.max(0, micros))]++;
+        total++;
+        max = Math.max(max, micros);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    // Верхняя граница корзины, в которую попал перцентиль, чтобы не занижать хвост.
+    long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,131 @@
+package benchmarks;
+
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import service.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Доски строит SyntheticBoard, файлы лежат во временном каталоге и удаляются после прогона.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int boardSize;
+
+        @Param({"CSV", "BINARY"})
+        public SnapshotFormat format;
+
+        File directory;
+        File file;
+        SnapshotFixtures.Saving manager;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("kanban-bench").toFile();
+            file = new File(directory, "tasks." + format.name().toLowerCase());
+            manager = SnapshotFixtures.seeded(format, file, SyntheticBoard.generate(boardSize));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            deleteDirectory(directory);
+        }
+    }
+
+    public enum Storage {
+        FILE_BACKED,
+        BINARY,
+        INCREMENTAL,
+        JOURNALED,
+        WRITE_BEHIND
+    }
+
+    @State(Scope.Benchmark)
+    public static class Mutation {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int boardSize;
+
+        @Param({"FILE_BACKED", "BINARY", "INCREMENTAL", "JOURNALED", "WRITE_BEHIND"})
+        public Storage storage;
+
+        File directory;
+        TaskManager manager;
+        Task[] updates;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("kanban-bench").toFile();
+            File file = new File(directory, "tasks.csv");
+            List<Task> board = SyntheticBoard.generate(boardSize);
+            manager = switch (storage) {
+                case FILE_BACKED -> SnapshotFixtures.seeded(SnapshotFormat.CSV, file, board);
+                case BINARY -> SnapshotFixtures.seeded(SnapshotFormat.BINARY, file, board);
+                case INCREMENTAL -> {
+                    IncrementalFileBackedTaskManager incremental = Managers.getIncrementalFileBacked(file);
+                    SyntheticBoard.apply(incremental, board);
+                    yield incremental;
+                }
+                case JOURNALED -> {
+                    SnapshotFixtures.seeded(SnapshotFormat.CSV, file, board);
+                    yield Managers.getJournaled(file);
+                }
+                case WRITE_BEHIND -> {
+                    SnapshotFixtures.seeded(SnapshotFormat.CSV, file, board);
+                    yield Managers.getWriteBehind(file, Duration.ofSeconds(1), 10_000);
+                }
+            };
+            updates = SyntheticBoard.taskUpdates(SyntheticBoard.generate(boardSize), 1 << 12, 7);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (manager instanceof Closeable closeable) {
+                closeable.close();
+            }
+            deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public SnapshotFixtures.Saving save(Snapshot state) {
+        state.manager.saveSnapshot();
+        return state.manager;
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load(Snapshot state) {
+        return SnapshotFixtures.load(state.format, state.file);
+    }
+
+    @Benchmark
+    public TaskManager updateTaskUnderPersistence(Mutation state) {
+        state.manager.updateTask(state.updates[state.cursor++ & (state.updates.length - 1)]);
+        return state.manager;
+    }
+
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
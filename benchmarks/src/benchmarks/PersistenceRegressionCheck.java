@@ -0,0 +1,203 @@
+package benchmarks;
+
+import model.Task;
+import service.JournaledTaskManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Быстрая проверка скорости сохранения и загрузки без JMH, пригодная для CI. Для каждого размера
+ * доски измеряет медиану нескольких прогонов save/load в CSV и бинарном формате и среднее время
+ * updateTask в инкрементальном и журналируемом менеджерах.
+ * <p>
+ * Абсолютные миллисекунды зависят от машины, поэтому в том же запуске меряется опорная нагрузка
+ * baseline.&lt;размер&gt; — запись и чтение байтов CSV-снапшота того же размера с разбором на строки,
+ * а метрики сравниваются как отношение к ней. С --thresholds отношения сверяются с записанными
+ * в properties-файле (ключ — имя метрики, значение — отношение к baseline того же размера),
+ * и запуск завершается с кодом 1, если отношение больше записанного в --tolerance раз
+ * (по умолчанию DEFAULT_TOLERANCE). --record записывает текущие отношения; если файл уже есть,
+ * для каждой метрики остаётся наибольшее из записанного и текущего, так что несколько запусков
+ * с --record дают значения, устойчивые к шуму.
+ * <p>
+ * Аргументы: [--sizes 10000,100000] [--runs 5] [--thresholds файл] [--tolerance 1.5] [--record файл]
+ */
+public class PersistenceRegressionCheck {
+
+    static final double DEFAULT_TOLERANCE = 1.5;
+    private static final String BASELINE = "baseline.";
+    private static final int BASELINE_RUNS_FACTOR = 4;
+    private static final int WARMUP_RUNS = 2;
+    private static final int UPDATES = 1000;
+
+    private interface Measured {
+        void run() throws IOException;
+    }
+
+    private interface Prepared {
+        Measured prepare() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Arguments arguments = new Arguments(args);
+        int[] sizes = Arrays.stream(arguments.get("sizes", "10000,100000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int runs = arguments.getInt("runs", 5);
+        double tolerance = Double.parseDouble(arguments.get("tolerance", Double.toString(DEFAULT_TOLERANCE)));
+
+        Map<String, Double> results = new LinkedHashMap<>();
+        for (int size : sizes) {
+            measure(size, runs, results);
+        }
+
+        Properties thresholds = load(arguments.has("thresholds") ? new File(arguments.get("thresholds", null)) : null);
+
+        Map<String, Double> ratios = ratios(results);
+        boolean failed = false;
+        System.out.printf("%-28s %12s %12s %14s%n", "метрика", "мс", "к baseline", "записано");
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            Double ratio = ratios.get(result.getKey());
+            String recorded = thresholds.getProperty(result.getKey());
+            boolean exceeded = ratio != null && recorded != null && ratio > Double.parseDouble(recorded) * tolerance;
+            failed |= exceeded;
+            System.out.printf(Locale.ROOT, "%-28s %12.3f %12s %14s%s%n", result.getKey(), result.getValue(),
+                    ratio == null ? "-" : String.format(Locale.ROOT, "%.4g", ratio),
+                    recorded == null ? "-" : recorded, exceeded ? "  ПРЕВЫШЕН" : "");
+        }
+
+        if (arguments.has("record")) {
+            record(ratios, new File(arguments.get("record", null)));
+        }
+        if (failed) {
+            System.out.println("Есть регрессии производительности");
+            System.exit(1);
+        }
+    }
+
+    private static void measure(int size, int runs, Map<String, Double> results) throws IOException {
+        File directory = Files.createTempDirectory("kanban-regression").toFile();
+        try {
+            File baselineSource = new File(directory, "baseline.csv");
+            SnapshotFixtures.seeded(SnapshotFormat.CSV, baselineSource, SyntheticBoard.generate(size));
+            byte[] baselineBytes = Files.readAllBytes(baselineSource.toPath());
+            File baselineFile = new File(directory, "baseline.copy");
+            // Опорная нагрузка дешёвая, а её шум входит во все отношения, поэтому прогонов больше.
+            results.put(BASELINE + size, median(runs * BASELINE_RUNS_FACTOR,
+                    () -> baseline(baselineBytes, baselineFile)));
+
+            for (SnapshotFormat format : SnapshotFormat.values()) {
+                String suffix = format.name().toLowerCase() + "." + size;
+                File file = new File(directory, "tasks." + format.name().toLowerCase());
+                SnapshotFixtures.Saving manager = SnapshotFixtures.seeded(format, file, SyntheticBoard.generate(size));
+                results.put("save." + suffix, median(runs, manager::saveSnapshot));
+                results.put("load." + suffix, median(runs, () -> SnapshotFixtures.load(format, file)));
+            }
+
+            File incrementalFile = new File(directory, "tasks.slots");
+            TaskManager incremental = Managers.getIncrementalFileBacked(incrementalFile);
+            SyntheticBoard.apply(incremental, SyntheticBoard.generate(size));
+            Task[] updates = SyntheticBoard.taskUpdates(SyntheticBoard.generate(size), UPDATES, 7);
+            results.put("update.incremental." + size, median(runs, () -> updateTasks(incremental, updates)) / UPDATES);
+
+            // Каждый прогон начинается с пустого журнала: иначе журнал растёт от прогона к прогону,
+            // и медиана зависит от числа прогонов.
+            File journaledFile = new File(directory, "tasks.journaled");
+            SnapshotFixtures.seeded(SnapshotFormat.CSV, journaledFile, SyntheticBoard.generate(size));
+            results.put("update.journaled." + size, median(runs, () -> {
+                JournaledTaskManager journaled = freshJournaled(journaledFile);
+                return () -> {
+                    try (journaled) {
+                        updateTasks(journaled, updates);
+                    }
+                };
+            }) / UPDATES);
+        } finally {
+            PersistenceBenchmark.deleteDirectory(directory);
+        }
+    }
+
+    private static JournaledTaskManager freshJournaled(File snapshot) throws IOException {
+        Files.deleteIfExists(new File(snapshot.getPath() + ".journal").toPath());
+        Files.deleteIfExists(new File(snapshot.getPath() + ".journal.old").toPath());
+        return Managers.getJournaled(snapshot);
+    }
+
+    private static void baseline(byte[] content, File file) throws IOException {
+        Files.write(file.toPath(), content);
+        byte[] read = Files.readAllBytes(file.toPath());
+        if (new String(read, StandardCharsets.UTF_8).split("\n").length == 0) {
+            throw new IllegalStateException("Пустой опорный файл");
+        }
+    }
+
+    private static void updateTasks(TaskManager manager, Task[] updates) {
+        for (Task update : updates) {
+            manager.updateTask(update);
+        }
+    }
+
+    private static double median(int runs, Measured measured) throws IOException {
+        return median(runs, () -> measured);
+    }
+
+    // prepare() выполняется перед каждым прогоном и в замер не входит.
+    private static double median(int runs, Prepared prepared) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            prepared.prepare().run();
+        }
+        double[] times = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            Measured measured = prepared.prepare();
+            long start = System.nanoTime();
+            measured.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    // Отношение каждой метрики к baseline того же размера (последний компонент имени метрики).
+    private static Map<String, Double> ratios(Map<String, Double> results) {
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            String key = result.getKey();
+            if (key.startsWith(BASELINE)) {
+                continue;
+            }
+            String size = key.substring(key.lastIndexOf('.') + 1);
+            ratios.put(key, result.getValue() / results.get(BASELINE + size));
+        }
+        return ratios;
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        if (file != null) {
+            try (Reader reader = new FileReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void record(Map<String, Double> ratios, File file) throws IOException {
+        Properties recorded = load(file.exists() ? file : null);
+        Map<String, Double> merged = new LinkedHashMap<>(ratios);
+        for (String key : recorded.stringPropertyNames()) {
+            merged.merge(key, Double.parseDouble(recorded.getProperty(key)), Math::max);
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println("# Отношения метрик PersistenceRegressionCheck к baseline.<размер> того же запуска;");
+            writer.println("# проверка падает, если отношение больше записанного в --tolerance раз (по умолчанию "
+                    + DEFAULT_TOLERANCE + ")");
+            for (Map.Entry<String, Double> ratio : merged.entrySet()) {
+                writer.printf(Locale.ROOT, "%s=%.4g%n", ratio.getKey(), ratio.getValue());
+            }
+        }
+        System.out.println("Отношения записаны в " + file);
+    }
+}
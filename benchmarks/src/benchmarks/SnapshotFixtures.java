@@ -0,0 +1,63 @@
+package benchmarks;
+
+import model.Task;
+import service.BinaryFileBackedTaskManager;
+import service.FileBackedTaskManager;
+import service.TaskManager;
+
+import java.io.File;
+import java.util.List;
+
+// Менеджеры, которые заполняются так же, как при загрузке, и сохраняются один раз:
+// через публичный API FileBackedTaskManager переписывал бы весь файл на каждую задачу.
+final class SnapshotFixtures {
+
+    private SnapshotFixtures() {
+    }
+
+    static Saving seeded(SnapshotFormat format, File file, List<Task> board) {
+        return switch (format) {
+            case CSV -> new Csv(file, board);
+            case BINARY -> new Binary(file, board);
+        };
+    }
+
+    static FileBackedTaskManager load(SnapshotFormat format, File file) {
+        return switch (format) {
+            case CSV -> FileBackedTaskManager.loadFromFile(file);
+            case BINARY -> BinaryFileBackedTaskManager.loadFromFile(file);
+        };
+    }
+
+    interface Saving extends TaskManager {
+        void saveSnapshot();
+    }
+
+    static final class Csv extends FileBackedTaskManager implements Saving {
+
+        Csv(File file, List<Task> board) {
+            super(file);
+            board.forEach(this::restore);
+            save();
+        }
+
+        @Override
+        public void saveSnapshot() {
+            save();
+        }
+    }
+
+    static final class Binary extends BinaryFileBackedTaskManager implements Saving {
+
+        Binary(File file, List<Task> board) {
+            super(file);
+            board.forEach(this::restore);
+            save();
+        }
+
+        @Override
+        public void saveSnapshot() {
+            save();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package benchmarks;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,132 @@
+package benchmarks;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.TaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Детерминированная синтетическая доска: при одинаковых size и seed получается одна и та же доска.
+ * 40% элементов — задачи, остальное — эпики с подзадачами. Число подзадач в эпике распределено
+ * по Парето: у большинства эпиков одна-три подзадачи, у редких — тысячи. 70% задач и подзадач
+ * имеют окно от 5 до 120 минут; окна идут друг за другом с паузами и не пересекаются.
+ * id идут подряд с 1 в порядке списка, эпик стоит перед своими подзадачами.
+ */
+public final class SyntheticBoard {
+
+    public static final long DEFAULT_SEED = 42;
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final double TASK_SHARE = 0.4;
+    private static final double TIMED_SHARE = 0.7;
+    private static final double PARETO_ALPHA = 1.2;
+    private static final int MAX_SUBTASKS_PER_EPIC = 100_000;
+
+    private final SplittableRandom random;
+    private final List<Task> board;
+    private long minutes;
+    private int id;
+
+    private SyntheticBoard(int size, long seed) {
+        this.random = new SplittableRandom(seed);
+        this.board = new ArrayList<>(size);
+    }
+
+    public static List<Task> generate(int size) {
+        return generate(size, DEFAULT_SEED);
+    }
+
+    public static List<Task> generate(int size, long seed) {
+        SyntheticBoard generator = new SyntheticBoard(size, seed);
+        generator.fill(size);
+        return generator.board;
+    }
+
+    // Через публичный API: менеджер выдаёт id в том же порядке, поэтому они совпадают со сгенерированными.
+    public static void apply(TaskManager manager, List<Task> board) {
+        for (Task task : board) {
+            switch (task.getType()) {
+                case TASK -> manager.createTask(task);
+                case EPIC -> manager.createEpic((Epic) task);
+                case SUBTASK -> manager.createSubtask((Subtask) task);
+            }
+        }
+    }
+
+    // Обновления случайных задач доски: новый статус, прежнее окно, поэтому пересечений не бывает.
+    public static Task[] taskUpdates(List<Task> board, int count, long seed) {
+        List<Task> tasks = board.stream().filter(task -> task.getType() == TaskType.TASK).toList();
+        SplittableRandom random = new SplittableRandom(seed);
+        TaskStatus[] statuses = TaskStatus.values();
+        Task[] updates = new Task[count];
+        for (int i = 0; i < count; i++) {
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            updates[i] = new Task(task.getTitle(), task.getDescription(), task.getId(),
+                    statuses[random.nextInt(statuses.length)], task.getStartTime(), task.getDuration());
+        }
+        return updates;
+    }
+
+    private void fill(int size) {
+        int taskCount = (int) (size * TASK_SHARE);
+        for (int i = 0; i < taskCount; i++) {
+            board.add(task());
+        }
+        while (board.size() < size) {
+            Epic epic = new Epic("Эпик " + (id + 1), "Описание эпика", ++id, TaskStatus.NEW);
+            board.add(epic);
+            int subtaskCount = Math.min(subtaskCount(), size - board.size());
+            for (int i = 0; i < subtaskCount; i++) {
+                board.add(subtask(epic.getId()));
+            }
+        }
+    }
+
+    private Task task() {
+        int taskId = ++id;
+        String title = "Задача " + taskId;
+        if (random.nextDouble() >= TIMED_SHARE) {
+            return new Task(title, "Описание задачи", taskId, status());
+        }
+        return new Task(title, "Описание задачи", taskId, status(), nextStart(), nextDuration());
+    }
+
+    private Subtask subtask(int epicId) {
+        int subtaskId = ++id;
+        String title = "Подзадача " + subtaskId;
+        if (random.nextDouble() >= TIMED_SHARE) {
+            return new Subtask(title, "Описание подзадачи", subtaskId, status(), epicId, null, Duration.ZERO);
+        }
+        return new Subtask(title, "Описание подзадачи", subtaskId, status(), epicId, nextStart(), nextDuration());
+    }
+
+    private int subtaskCount() {
+        double pareto = Math.pow(1 - random.nextDouble(), -1 / PARETO_ALPHA);
+        return (int) Math.min(MAX_SUBTASKS_PER_EPIC, pareto);
+    }
+
+    private TaskStatus status() {
+        TaskStatus[] statuses = TaskStatus.values();
+        return statuses[random.nextInt(statuses.length)];
+    }
+
+    // Окно начинается после паузы 0–60 минут от конца предыдущего и сдвигает курсор на свою длительность.
+    private LocalDateTime nextStart() {
+        minutes += random.nextInt(61);
+        return START.plusMinutes(minutes);
+    }
+
+    private Duration nextDuration() {
+        int duration = 5 + random.nextInt(116);
+        minutes += duration;
+        return Duration.ofMinutes(duration);
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.*;
+import service.InMemoryTaskManager;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Операции, не меняющие размер доски: их можно повторять на одной доске всю итерацию.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskManagerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class MixedBoard {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int boardSize;
+
+        InMemoryTaskManager manager;
+        int[] viewOrder;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = Boards.mixed(boardSize);
+            List<Task> tasks = manager.getTasks();
+            SplittableRandom random = new SplittableRandom(42);
+            viewOrder = new int[1 << 16];
+            for (int i = 0; i < viewOrder.length; i++) {
+                viewOrder[i] = tasks.get(random.nextInt(tasks.size())).getId();
+            }
+        }
+
+        int nextViewedId() {
+            return viewOrder[cursor++ & (viewOrder.length - 1)];
+        }
+    }
+
+    // Один эпик, в котором все boardSize подзадач.
+    @State(Scope.Benchmark)
+    public static class LargeEpic {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int boardSize;
+
+        InMemoryTaskManager manager;
+        Subtask[] updates;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new InMemoryTaskManager();
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.createEpic(epic);
+            for (int i = 0; i < boardSize; i++) {
+                manager.createSubtask(Boards.subtask(epic.getId(), i, i));
+            }
+            List<Subtask> subtasks = manager.getSubtasksByEpicId(epic.getId());
+            SplittableRandom random = new SplittableRandom(42);
+            TaskStatus[] statuses = TaskStatus.values();
+            updates = new Subtask[1 << 12];
+            for (int i = 0; i < updates.length; i++) {
+                Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                updates[i] = new Subtask(subtask.getTitle(), subtask.getDescription(), subtask.getId(),
+                        statuses[random.nextInt(statuses.length)], epic.getId(),
+                        subtask.getStartTime(), subtask.getDuration());
+            }
+        }
+    }
+
+    @Benchmark
+    public void updateSubtaskOnLargeEpic(LargeEpic state) {
+        state.manager.updateSubtask(state.updates[state.cursor++ & (state.updates.length - 1)]);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks(MixedBoard state) {
+        return state.manager.getPrioritizedTasks();
+    }
+
+    // Просмотры случайных задач: история всё время заполнена, и каждый новый просмотр вытесняет старый.
+    @Benchmark
+    public Task historyChurn(MixedBoard state) {
+        return state.manager.getTaskById(state.nextViewedId());
+    }
+
+    @Benchmark
+    public List<Task> getHistory(MixedBoard state) {
+        return state.manager.getHistory();
+    }
+}
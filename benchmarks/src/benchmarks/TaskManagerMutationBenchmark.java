@@ -0,0 +1,80 @@
+package benchmarks;
+
+import model.Epic;
+import model.Task;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.*;
+import service.InMemoryTaskManager;
+
+import java.util.concurrent.TimeUnit;
+
+// Операции, которые растят или очищают доску. Каждая итерация начинается со свежей доски размера
+// boardSize и выполняет BATCH операций, поэтому результат — время пачки, а не одной операции.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TaskManagerMutationBenchmark {
+
+    static final int BATCH = 10_000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int boardSize;
+
+    private InMemoryTaskManager manager;
+    private int epicId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        manager = Boards.mixed(boardSize);
+        Epic epic = new Epic("Эпик для новых подзадач", "Описание");
+        manager.createEpic(epic);
+        epicId = epic.getId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createTask() {
+        for (int i = 0; i < BATCH; i++) {
+            manager.createTask(new Task("Новая задача", "Описание"));
+        }
+        return manager;
+    }
+
+    // Новые окна идут после всех слотов доски, поэтому не пересекаются с ней.
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createTaskWithTime() {
+        for (int i = 0; i < BATCH; i++) {
+            manager.createTask(new Task("Новая задача", "Описание", TaskStatus.NEW,
+                    Boards.TASK_DURATION, Boards.slot(boardSize + i)));
+        }
+        return manager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createSubtask() {
+        for (int i = 0; i < BATCH; i++) {
+            manager.createSubtask(Boards.subtask(epicId, i, -1));
+        }
+        return manager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createSubtaskWithTime() {
+        for (int i = 0; i < BATCH; i++) {
+            manager.createSubtask(Boards.subtask(epicId, i, boardSize + i));
+        }
+        return manager;
+    }
+
+    @Benchmark
+    public InMemoryTaskManager deleteAllEpics() {
+        manager.deleteAllEpics();
+        return manager;
+    }
+}
@@ -1,17 +1,100 @@
 package http.Handlers;
 
+import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import http.HistorySessions;
+import metrics.JsonSerializationEvent;
+import model.Task;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class BaseHttpHandler {
 
+    // Версия доски начинается заново у каждого менеджера и процесса, поэтому в ETag входит
+    // случайный идентификатор обработчика: тег от прежнего запуска не совпадёт с новой доской.
+    private final String etagNonce = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    protected static String clientId(HttpExchange exchange) {
+        return HistorySessions.clientId(exchange.getRequestHeaders().getFirst(HistorySessions.CLIENT_ID_HEADER));
+    }
+
+    // Просмотр попадает в историю клиента, только если запрос пришёл с X-Client-Id.
+    protected static void recordView(HttpExchange exchange, HistorySessions historySessions, Task task) {
+        String clientId = clientId(exchange);
+        if (clientId != null) {
+            historySessions.recordView(clientId, task);
+        }
+    }
+
+    protected static String toJson(Gson gson, Object value) {
+        JsonSerializationEvent event = new JsonSerializationEvent();
+        event.begin();
+        String json = gson.toJson(value);
+        if (event.shouldCommit()) {
+            if (value instanceof Collection<?> collection) {
+                event.type = collection.isEmpty()
+                        ? "List" : "List<" + collection.iterator().next().getClass().getSimpleName() + ">";
+                event.taskId = -1;
+                event.elementCount = collection.size();
+            } else {
+                event.type = value.getClass().getSimpleName();
+                event.taskId = value instanceof Task task ? task.getId() : -1;
+                event.elementCount = 1;
+            }
+            event.length = json.length();
+            event.commit();
+        }
+        return json;
+    }
+
+    // Строгий ETag по версии доски: представление любой задачи или списка при одной версии одинаково.
+    protected String etag(long version) {
+        return "\"" + etagNonce + "-" + version + "\"";
+    }
+
+    // Ставит ETag и, если If-None-Match его содержит, отвечает 304 без тела.
+    // Возвращает true, если ответ уже отправлен.
+    protected boolean sendNotModifiedIfMatches(HttpExchange exchange, long version) throws IOException {
+        String etag = etag(version);
+        exchange.getResponseHeaders().set("ETag", etag);
+        List<String> ifNoneMatch = exchange.getRequestHeaders().get("If-None-Match");
+        if (ifNoneMatch == null || !matchesAny(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // Для If-None-Match теги сравниваются слабо, поэтому префикс W/ отбрасывается.
+    private static boolean matchesAny(List<String> headerValues, String etag) {
+        for (String headerValue : headerValues) {
+            for (String candidate : headerValue.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void sendResponse(HttpExchange exchange, String responseText, int responseCode) throws IOException {
-        exchange.sendResponseHeaders(responseCode, responseText.getBytes().length);
+        sendResponse(exchange, responseText.getBytes(StandardCharsets.UTF_8), responseCode);
+    }
+
+    private void sendResponse(HttpExchange exchange, byte[] body, int responseCode) throws IOException {
+        exchange.sendResponseHeaders(responseCode, body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseText.getBytes(StandardCharsets.UTF_8));
+            os.write(body);
         }
     }
 
@@ -19,6 +102,10 @@ public class BaseHttpHandler {
         sendResponse(exchange, response, 200);
     }
 
+    protected void sendOkResponse(HttpExchange exchange, byte[] response) throws IOException {
+        sendResponse(exchange, response, 200);
+    }
+
     protected void sendCreatedResponse(HttpExchange exchange, String response) throws IOException {
         sendResponse(exchange, response, 201);
     }
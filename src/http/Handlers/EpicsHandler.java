@@ -6,6 +6,7 @@ import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import exceptions.ManagerSaveException;
+import http.HistorySessions;
 import model.Epic;
 import model.Subtask;
 import service.TaskManager;
@@ -19,10 +20,13 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
 
     private final TaskManager taskManager;
     private final Gson gson;
+    private final HistorySessions historySessions;
+    private final VersionedResponseCache listCache = new VersionedResponseCache();
 
-    public EpicsHandler(TaskManager taskManager, Gson gson) {
+    public EpicsHandler(TaskManager taskManager, Gson gson, HistorySessions historySessions) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.historySessions = historySessions;
     }
 
     private Epic getEpicFromRequestBody(HttpExchange exchange) throws IOException {
@@ -32,8 +36,11 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetEpics(HttpExchange exchange) throws IOException {
-        List<Epic> epics = taskManager.getEpics();
-        sendOkResponse(exchange, gson.toJson(epics));
+        long version = taskManager.getVersion();
+        if (sendNotModifiedIfMatches(exchange, version)) {
+            return;
+        }
+        sendOkResponse(exchange, listCache.get(version, taskManager::getEpics, gson).body());
     }
 
     private void handleGetEpicById(HttpExchange exchange) throws IOException {
@@ -48,9 +55,14 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
         try {
             String idString = parts[2];
             int id = Integer.parseInt(idString);
+            long version = taskManager.getVersion();
             Epic epic = taskManager.getEpicById(id);
             if (epic != null) {
-                sendOkResponse(exchange, gson.toJson(epic));
+                recordView(exchange, historySessions, epic);
+                if (sendNotModifiedIfMatches(exchange, version)) {
+                    return;
+                }
+                sendOkResponse(exchange, toJson(gson, epic));
             } else {
                 sendNotFoundResponse(exchange, "Эпик с id " + id + " не найден.");
             }
@@ -71,8 +83,12 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
         try {
             String epicIdString = parts[2];
             int epicId = Integer.parseInt(epicIdString);
+            long version = taskManager.getVersion();
+            if (sendNotModifiedIfMatches(exchange, version)) {
+                return;
+            }
             List<Subtask> subtasks = taskManager.getSubtasksByEpicId(epicId);
-            sendOkResponse(exchange, gson.toJson(subtasks));
+            sendOkResponse(exchange, toJson(gson, subtasks));
         } catch (NumberFormatException e) {
             sendNotFoundResponse(exchange, "Неверное значение id эпика");
         }
@@ -99,7 +115,10 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
         try {
             String epicIdString = parts[2];
             int epicId = Integer.parseInt(epicIdString);
+            List<Subtask> epicSubtasks = taskManager.getSubtasksByEpicId(epicId);
             taskManager.deleteEpicById(epicId);
+            historySessions.removeFromAll(epicId);
+            epicSubtasks.forEach(subtask -> historySessions.removeFromAll(subtask.getId()));
             sendOkResponse(exchange, "Эпик удалён.");
         } catch (Exception e) {
             sendNotFoundResponse(exchange, "Произошла ошибка при удалении эпика.");
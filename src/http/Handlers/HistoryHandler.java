@@ -3,6 +3,7 @@ package http.Handlers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import http.HistorySessions;
 import model.Task;
 import service.TaskManager;
 
@@ -12,18 +13,24 @@ import java.util.List;
 public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
+    private final HistorySessions historySessions;
 
-    public HistoryHandler(TaskManager taskManager, Gson gson) {
+    public HistoryHandler(TaskManager taskManager, Gson gson, HistorySessions historySessions) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.historySessions = historySessions;
     }
 
+    // С заголовком X-Client-Id возвращается история этого клиента, без него — общая история менеджера.
     private void handleGetHistory(HttpExchange exchange) throws IOException {
-        List<Task> historyList = taskManager.getHistory();
+        String clientId = clientId(exchange);
+        List<Task> historyList = clientId != null
+                ? historySessions.getHistory(clientId)
+                : taskManager.getHistory();
         if (historyList.isEmpty()) {
             sendNotFoundResponse(exchange, "Список истории пуст");
         } else {
-            sendOkResponse(exchange, gson.toJson(historyList));
+            sendOkResponse(exchange, toJson(gson, historyList));
         }
     }
 
@@ -0,0 +1,31 @@
+package http.Handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+public class MetricsHandler extends BaseHttpHandler implements HttpHandler {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void handle(HttpExchange exchange) throws IOException {
+        String requestMethod = exchange.getRequestMethod();
+
+        switch (requestMethod) {
+            case "GET":
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                sendOkResponse(exchange, registry.render());
+                break;
+            default:
+                sendNotAllowedResponse(exchange, "Метод не поддерживается.");
+                break;
+        }
+    }
+}
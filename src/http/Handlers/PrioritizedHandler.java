@@ -3,15 +3,14 @@ package http.Handlers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import model.Task;
 import service.TaskManager;
 
 import java.io.IOException;
-import java.util.List;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
+    private final VersionedResponseCache listCache = new VersionedResponseCache();
 
     public PrioritizedHandler(TaskManager taskManager, Gson gson) {
         this.taskManager = taskManager;
@@ -19,11 +18,12 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetPrioritized(HttpExchange exchange) throws IOException {
-        List<Task> prioritizedList = taskManager.getPrioritizedTasks();
-        if (prioritizedList.isEmpty()) {
+        VersionedResponseCache.Response prioritized =
+                listCache.get(taskManager.getVersion(), taskManager::getPrioritizedTasks, gson);
+        if (prioritized.size() == 0) {
             sendNotFoundResponse(exchange, "Список приоритетных задач пуст");
-        } else {
-            sendOkResponse(exchange, gson.toJson(prioritizedList));
+        } else if (!sendNotModifiedIfMatches(exchange, prioritized.version())) {
+            sendOkResponse(exchange, prioritized.body());
         }
     }
 
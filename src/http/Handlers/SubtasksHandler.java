@@ -6,22 +6,25 @@ import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import exceptions.ManagerSaveException;
+import http.HistorySessions;
 import model.Subtask;
 import service.TaskManager;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
 
     private final TaskManager taskManager;
     private final Gson gson;
+    private final HistorySessions historySessions;
+    private final VersionedResponseCache listCache = new VersionedResponseCache();
 
-    public SubtasksHandler(TaskManager taskManager, Gson gson) {
+    public SubtasksHandler(TaskManager taskManager, Gson gson, HistorySessions historySessions) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.historySessions = historySessions;
     }
 
     private Subtask getSubtaskFromRequestBody(HttpExchange exchange) throws IOException {
@@ -31,8 +34,11 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handlerGetSubtasks(HttpExchange exchange) throws IOException {
-        List<Subtask> subtasks = taskManager.getSubtasks();
-        sendOkResponse(exchange, gson.toJson(subtasks));
+        long version = taskManager.getVersion();
+        if (sendNotModifiedIfMatches(exchange, version)) {
+            return;
+        }
+        sendOkResponse(exchange, listCache.get(version, taskManager::getSubtasks, gson).body());
     }
 
     private void handlerGetSubtaskById(HttpExchange exchange) throws IOException {
@@ -47,9 +53,14 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
         try {
             String subtuskIdString = parts[2];
             int subtaskId = Integer.parseInt(subtuskIdString);
+            long version = taskManager.getVersion();
             Subtask subtask = taskManager.getSubtaskById(subtaskId);
             if (subtask != null) {
-                sendOkResponse(exchange, gson.toJson(subtask));
+                recordView(exchange, historySessions, subtask);
+                if (sendNotModifiedIfMatches(exchange, version)) {
+                    return;
+                }
+                sendOkResponse(exchange, toJson(gson, subtask));
             } else {
                 sendNotFoundResponse(exchange, "Подзадача с id " + subtaskId + " не найдена.");
             }
@@ -95,6 +106,7 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
             String subtaskIdString = parts[2];
             int subtaskId = Integer.parseInt(subtaskIdString);
             taskManager.deleteSubtaskById(subtaskId);
+            historySessions.removeFromAll(subtaskId);
             sendOkResponse(exchange, "Подзадача удалёна.");
         } catch (Exception e) {
             sendNotFoundResponse(exchange, "Произошла ошибка при удалении подзадачи.");
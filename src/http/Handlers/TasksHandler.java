@@ -6,21 +6,24 @@ import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import exceptions.ManagerSaveException;
+import http.HistorySessions;
 import model.Task;
 import service.TaskManager;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 public class TasksHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
+    private final HistorySessions historySessions;
+    private final VersionedResponseCache listCache = new VersionedResponseCache();
 
-    public TasksHandler(TaskManager taskManager, Gson gson) {
+    public TasksHandler(TaskManager taskManager, Gson gson, HistorySessions historySessions) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.historySessions = historySessions;
     }
 
     private Task getTaskFromRequestBody(HttpExchange exchange) throws IOException {
@@ -30,8 +33,11 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetTasks(HttpExchange exchange) throws IOException {
-        List<Task> tasks = taskManager.getTasks();
-        sendOkResponse(exchange, gson.toJson(tasks));
+        long version = taskManager.getVersion();
+        if (sendNotModifiedIfMatches(exchange, version)) {
+            return;
+        }
+        sendOkResponse(exchange, listCache.get(version, taskManager::getTasks, gson).body());
     }
 
     private void handleGetTaskById(HttpExchange exchange) throws IOException {
@@ -46,9 +52,14 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
         try {
             String idString = parts[2];
             int id = Integer.parseInt(idString);
+            long version = taskManager.getVersion();
             Task task = taskManager.getTaskById(id);
             if (task != null) {
-                sendOkResponse(exchange, gson.toJson(task));
+                recordView(exchange, historySessions, task);
+                if (sendNotModifiedIfMatches(exchange, version)) {
+                    return;
+                }
+                sendOkResponse(exchange, toJson(gson, task));
             } else {
                 sendNotFoundResponse(exchange, "Задача с id = " + id + " не найдена.");
             }
@@ -93,6 +104,7 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
                 return;
             }
             taskManager.deleteTaskById(taskId);
+            historySessions.removeFromAll(taskId);
             sendOkResponse(exchange, "Задача удалена.");
         } catch (Exception e) {
             sendNotFoundResponse(exchange, "Произошла ошибка при удалении задачи.");
@@ -0,0 +1,33 @@
+package http.Handlers;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Хранит последний сериализованный в UTF-8 список вместе с версией доски, для которой он построен.
+ * Пока версия TaskManager не изменилась, обработчик отдаёт готовые байты без обращения к Gson.
+ * Версию нужно прочитать до получения списка: тогда при гонке с изменением в кэш попадут данные
+ * не старше версии, и следующий запрос с новой версией просто построит ответ заново.
+ */
+class VersionedResponseCache {
+
+    record Response(long version, byte[] body, int size) {
+    }
+
+    private volatile Response cached;
+
+    Response get(long version, Supplier<? extends Collection<?>> source, Gson gson) {
+        Response response = cached;
+        if (response != null && response.version() == version) {
+            return response;
+        }
+        Collection<?> items = source.get();
+        response = new Response(version, BaseHttpHandler.toJson(gson, items).getBytes(StandardCharsets.UTF_8),
+                items.size());
+        cached = response;
+        return response;
+    }
+}
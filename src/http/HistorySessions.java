@@ -0,0 +1,149 @@
+package http;
+
+import model.Task;
+import service.HistoryManager;
+import service.Managers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Истории просмотров отдельных клиентов HTTP API, ключ — заголовок X-Client-Id.
+ * В каждой истории не больше historyCapacity задач, клиентов не больше maxSessions, поэтому
+ * все сессии вместе держат не больше maxSessions * historyCapacity записей. Сессия, к которой
+ * не обращались дольше idleTimeout, удаляется при очередной проверке; если места всё равно нет,
+ * вытесняется пачка сессий, к которым обращались раньше всех.
+ */
+public class HistorySessions {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    public static final int MAX_CLIENT_ID_LENGTH = 64;
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    public static final int DEFAULT_HISTORY_CAPACITY = 100;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int EVICTION_BATCH_DIVISOR = 16;
+
+    private static final class Session {
+        final HistoryManager history;
+        volatile long lastAccess;
+
+        Session(HistoryManager history, long now) {
+            this.history = history;
+            this.lastAccess = now;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+    private final int historyCapacity;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastSweep;
+
+    public HistorySessions() {
+        this(DEFAULT_MAX_SESSIONS, DEFAULT_HISTORY_CAPACITY, DEFAULT_IDLE_TIMEOUT, System::nanoTime);
+    }
+
+    public HistorySessions(int maxSessions, int historyCapacity, Duration idleTimeout, LongSupplier nanoClock) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Число сессий должно быть положительным: " + maxSessions);
+        }
+        this.maxSessions = maxSessions;
+        this.historyCapacity = historyCapacity;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastSweep = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    // Слишком длинный id считается отсутствующим, чтобы ключи сессий не раздували память.
+    public static String clientId(String header) {
+        if (header == null || header.isBlank() || header.length() > MAX_CLIENT_ID_LENGTH) {
+            return null;
+        }
+        return header;
+    }
+
+    // Создание сессии и запись просмотра идут внутри compute под блокировкой ключа, поэтому вытеснение
+    // не может удалить сессию между ними и унести просмотр с собой.
+    public void recordView(String clientId, Task task) {
+        long now = nanoClock.getAsLong();
+        if (!sessions.containsKey(clientId)) {
+            makeRoom(now);
+        }
+        sessions.compute(clientId, (key, session) -> {
+            if (session == null) {
+                session = new Session(Managers.getHistoryManager(historyCapacity), now);
+            }
+            session.lastAccess = now;
+            synchronized (session) {
+                session.history.addInHistory(task);
+            }
+            return session;
+        });
+    }
+
+    public List<Task> getHistory(String clientId) {
+        Session session = sessions.get(clientId);
+        if (session == null) {
+            return List.of();
+        }
+        session.lastAccess = nanoClock.getAsLong();
+        synchronized (session) {
+            return session.history.getHistory();
+        }
+    }
+
+    public void removeFromAll(int id) {
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                session.history.removeFromHistory(id);
+            }
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        lastSweep.set(now);
+        for (String clientId : sessions.keySet()) {
+            sessions.computeIfPresent(clientId,
+                    (key, session) -> now - session.lastAccess > idleTimeoutNanos ? null : session);
+        }
+    }
+
+    private void makeRoom(long now) {
+        if (now - lastSweep.get() > idleTimeoutNanos || sessions.size() >= maxSessions) {
+            evictIdle();
+        }
+        if (sessions.size() >= maxSessions) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    // Один обход вытесняет пачку самых старых сессий, не меньше maxSessions / EVICTION_BATCH_DIVISOR, поэтому
+    // полный обход случается раз на пачку новых клиентов, а не на каждого. Сессия, к которой обратились
+    // после обхода, не удаляется.
+    private void evictLeastRecentlyUsed() {
+        int batch = Math.max(sessions.size() - maxSessions + 1, Math.max(1, maxSessions / EVICTION_BATCH_DIVISOR));
+        PriorityQueue<Map.Entry<String, Long>> eldest = new PriorityQueue<>(batch + 1,
+                Map.Entry.<String, Long>comparingByValue().reversed());
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            eldest.add(Map.entry(entry.getKey(), entry.getValue().lastAccess));
+            if (eldest.size() > batch) {
+                eldest.poll();
+            }
+        }
+        for (Map.Entry<String, Long> entry : eldest) {
+            sessions.computeIfPresent(entry.getKey(),
+                    (key, session) -> session.lastAccess == entry.getValue() ? null : session);
+        }
+    }
+}
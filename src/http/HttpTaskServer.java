@@ -3,44 +3,108 @@ package http;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import http.Handlers.*;
+import metrics.MetricsRegistry;
 import service.Managers;
+import service.MeteredTaskManager;
 import service.TaskManager;
 import util.DurationAdapter;
+import util.IntArrayList;
+import util.IntArrayListAdapter;
 import util.LocalDateTimeAdapter;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpTaskServer {
 
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_BACKLOG = 0;
+
     private final TaskManager taskManager;
-    private final int port = 8080;
+    private final int port;
     private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final HistorySessions historySessions = new HistorySessions();
+    private final MetricsRegistry metrics = MetricsRegistry.DEFAULT;
     private final Gson gson = new GsonBuilder()
             .serializeNulls()
             .setPrettyPrinting()
             .registerTypeAdapter(Duration.class, new DurationAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapter(IntArrayList.class, new IntArrayListAdapter())
             .create();
 
+    // Запросы выполняет по одному поток-диспетчер сервера, поэтому подходит любой менеджер,
+    // в том числе непотокобезопасный Managers.getDefault().
     public HttpTaskServer(TaskManager taskManager) throws IOException {
-        this.taskManager = taskManager;
-        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
-        httpServer.createContext("/tasks", new TasksHandler(taskManager, gson));
-        httpServer.createContext("/epics", new EpicsHandler(taskManager, gson));
-        httpServer.createContext("/subtasks", new SubtasksHandler(taskManager, gson));
-        httpServer.createContext("/history", new HistoryHandler(taskManager, gson));
-        httpServer.createContext("/prioritized", new PrioritizedHandler(taskManager, gson));
+        this(taskManager, DEFAULT_PORT, null, DEFAULT_BACKLOG);
+    }
+
+    // Запросы обрабатываются параллельно, поэтому taskManager должен быть потокобезопасным,
+    // например Managers.getConcurrent(). executor принадлежит серверу и закрывается в stop(),
+    // null — запросы выполняет поток-диспетчер по одному.
+    // backlog — длина очереди входящих соединений, 0 — значение по умолчанию системы.
+    public HttpTaskServer(TaskManager taskManager, ExecutorService executor, int backlog) throws IOException {
+        this(taskManager, DEFAULT_PORT, executor, backlog);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port, ExecutorService executor, int backlog)
+            throws IOException {
+        this.taskManager = new MeteredTaskManager(taskManager, metrics);
+        this.port = port;
+        this.executor = executor;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), backlog);
+        httpServer.setExecutor(executor);
+        createContext("/tasks", new TasksHandler(this.taskManager, gson, historySessions));
+        createContext("/epics", new EpicsHandler(this.taskManager, gson, historySessions));
+        createContext("/subtasks", new SubtasksHandler(this.taskManager, gson, historySessions));
+        createContext("/history", new HistoryHandler(this.taskManager, gson, historySessions));
+        createContext("/prioritized", new PrioritizedHandler(this.taskManager, gson));
+        createContext("/metrics", new MetricsHandler(metrics));
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        httpServer.createContext(path, handler).getFilters().add(new MetricsFilter(metrics, path));
+    }
+
+    public static ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory());
+    }
+
+    // Когда все потоки заняты и очередь заполнена, запрос выполняет поток-диспетчер сервера,
+    // и приём новых соединений приостанавливается до освобождения места.
+    public static ExecutorService boundedPlatformExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "http-worker-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public int getPort() {
+        return port;
     }
 
     public Gson getGson() {
         return gson;
     }
 
+    public HistorySessions getHistorySessions() {
+        return historySessions;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     public void start() {
         httpServer.start();
         System.out.println("Http-сервер запущен на " + port + " порту.");
@@ -48,14 +112,25 @@ public class HttpTaskServer {
 
     public void stop() {
         httpServer.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (taskManager instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                System.out.println("Ошибка при сохранении задач: " + e.getMessage());
+            }
+        }
         System.out.println("Http-сервер на порту" + port + " остановлен.");
     }
 
     public static void main(String[] args) throws IOException {
-        TaskManager taskManager = Managers.getDefault();
-        HttpTaskServer server = new HttpTaskServer(taskManager);
+        TaskManager taskManager = Managers.getConcurrent();
+        HttpTaskServer server = new HttpTaskServer(taskManager, virtualThreadExecutor(), DEFAULT_BACKLOG);
 
         server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
     }
 }
 
@@ -0,0 +1,70 @@
+package http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Считает запросы и их длительность по обработчику и коду ответа. Метрики для каждого кода
+// берутся из реестра при первом появлении кода и дальше читаются из массива без выделения памяти.
+public class MetricsFilter extends Filter {
+
+    private static final int MAX_STATUS_CODE = 600;
+    private static final int FAILED_STATUS_CODE = 500;
+
+    private final MetricsRegistry registry;
+    private final String handler;
+    private final AtomicReferenceArray<Counter> requests = new AtomicReferenceArray<>(MAX_STATUS_CODE);
+    private final AtomicReferenceArray<Histogram> durations = new AtomicReferenceArray<>(MAX_STATUS_CODE);
+
+    public MetricsFilter(MetricsRegistry registry, String handler) {
+        this.registry = registry;
+        this.handler = handler;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int statusCode = exchange.getResponseCode();
+            // Обработчик упал, не отправив ответ: сервер закроет соединение, считаем это ошибкой.
+            if (statusCode < 100 || statusCode >= MAX_STATUS_CODE) {
+                statusCode = FAILED_STATUS_CODE;
+            }
+            requests(statusCode).increment();
+            duration(statusCode).recordNanos(elapsed);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Метрики запросов " + handler;
+    }
+
+    private Counter requests(int statusCode) {
+        Counter counter = requests.get(statusCode);
+        if (counter == null) {
+            counter = registry.counter("kanban_http_requests_total", "Количество HTTP-запросов",
+                    "handler", handler, "code", Integer.toString(statusCode));
+            requests.set(statusCode, counter);
+        }
+        return counter;
+    }
+
+    private Histogram duration(int statusCode) {
+        Histogram histogram = durations.get(statusCode);
+        if (histogram == null) {
+            histogram = registry.histogram("kanban_http_request_duration_seconds",
+                    "Длительность обработки HTTP-запросов", "handler", handler, "code", Integer.toString(statusCode));
+            durations.set(statusCode, histogram);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,20 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kanban.EpicStatusUpdate")
+@Label("Пересчёт статуса эпика")
+@Category({"Kanban", "Менеджер"})
+public class EpicStatusUpdateEvent extends Event {
+
+    @Label("Id эпика")
+    public int epicId;
+
+    @Label("Подзадач в эпике")
+    public int subtaskCount;
+
+    @Label("Размер доски")
+    public int boardSize;
+
+    @Label("Статус")
+    public String status;
+}
@@ -0,0 +1,70 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей с лог-линейными границами: в каждой степени двойки от 8 мкс до 34 с
+ * две корзины, 2^k и 1.5 * 2^k наносекунд. Границы фиксированы, поэтому ряды Prometheus совпадают
+ * между опросами. record не выделяет память и не берёт блокировок.
+ */
+public class Histogram {
+
+    private static final int MIN_EXPONENT = 13;
+    private static final int MAX_EXPONENT = 35;
+    static final long[] UPPER_BOUNDS_NANOS = upperBounds();
+
+    private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS_NANOS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    private static long[] upperBounds() {
+        long[] bounds = new long[(MAX_EXPONENT - MIN_EXPONENT) * 2 + 1];
+        int index = 0;
+        for (int exponent = MIN_EXPONENT; exponent < MAX_EXPONENT; exponent++) {
+            bounds[index++] = 1L << exponent;
+            bounds[index++] = 3L << (exponent - 1);
+        }
+        bounds[index] = 1L << MAX_EXPONENT;
+        return bounds;
+    }
+
+    public void recordNanos(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        sumNanos.add(nanos);
+    }
+
+    // Индекс первой границы, не меньшей nanos; последний индекс — корзина +Inf.
+    static int bucket(long nanos) {
+        int low = 0;
+        int high = UPPER_BOUNDS_NANOS.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (UPPER_BOUNDS_NANOS[middle] < nanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    long bucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    int bucketLength() {
+        return counts.length();
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,26 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kanban.JsonSerialization")
+@Label("Сериализация ответа в JSON")
+@Category({"Kanban", "HTTP"})
+public class JsonSerializationEvent extends Event {
+
+    @Label("Тип")
+    public String type;
+
+    @Label("Id задачи")
+    @Description("-1 для списков")
+    public int taskId;
+
+    @Label("Элементов")
+    public int elementCount;
+
+    @Label("Длина JSON, символов")
+    public int length;
+}
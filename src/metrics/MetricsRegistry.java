@@ -0,0 +1,121 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Реестр счётчиков и гистограмм с выводом в текстовом формате Prometheus.
+ * Поиск метрики по имени и меткам выделяет память, поэтому вызывающий код получает
+ * счётчик или гистограмму один раз и дальше работает с ней напрямую.
+ */
+public class MetricsRegistry {
+
+    // Общий реестр процесса: сюда пишут и HTTP-сервер, и менеджеры с сохранением в файл.
+    public static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private enum Type {
+        COUNTER,
+        HISTOGRAM
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) series(name, help, Type.COUNTER, labels);
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) series(name, help, Type.HISTOGRAM, labels);
+    }
+
+    private Object series(String name, String help, Type type, String[] labels) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована как " + family.type);
+        }
+        return family.series.computeIfAbsent(labels(labels),
+                key -> type == Type.COUNTER ? new Counter() : new Histogram());
+    }
+
+    // Метки передаются парами: имя, значение.
+    private static String labels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки должны задаваться парами имя-значение");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ')
+                    .append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                if (family.type == Type.COUNTER) {
+                    appendSample(out, family.name, series.getKey(), null, ((Counter) series.getValue()).get());
+                } else {
+                    appendHistogram(out, family.name, series.getKey(), (Histogram) series.getValue());
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        long cumulative = 0;
+        for (int i = 0; i < histogram.bucketLength(); i++) {
+            cumulative += histogram.bucketCount(i);
+            String le = i < Histogram.UPPER_BOUNDS_NANOS.length
+                    ? Double.toString(Histogram.UPPER_BOUNDS_NANOS[i] / 1e9)
+                    : "+Inf";
+            appendSample(out, name + "_bucket", labels, "le=\"" + le + "\"", cumulative);
+        }
+        out.append(name).append("_sum");
+        appendLabels(out, labels, null);
+        out.append(' ').append(histogram.sumSeconds()).append('\n');
+        appendSample(out, name + "_count", labels, null, cumulative);
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, String extra, long value) {
+        out.append(name);
+        appendLabels(out, labels, extra);
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void appendLabels(StringBuilder out, String labels, String extra) {
+        if (labels.isEmpty() && extra == null) {
+            return;
+        }
+        out.append('{').append(labels);
+        if (extra != null) {
+            out.append(labels.isEmpty() ? "" : ",").append(extra);
+        }
+        out.append('}');
+    }
+}
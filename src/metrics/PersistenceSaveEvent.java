@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kanban.PersistenceSave")
+@Label("Запись задач на диск")
+@Category({"Kanban", "Хранение"})
+public class PersistenceSaveEvent extends Event {
+
+    @Label("Менеджер")
+    public String manager;
+
+    @Label("Операция")
+    public String operation;
+
+    @Label("Файл")
+    public String path;
+
+    @Label("Размер доски")
+    public int boardSize;
+
+    @Label("Записано байт")
+    @DataAmount
+    public long bytesWritten;
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kanban.TimeIntersectionCheck")
+@Label("Проверка пересечения по времени")
+@Description("Поиск задачи, чьё окно времени пересекается с окном создаваемой или обновляемой задачи")
+@Category({"Kanban", "Менеджер"})
+public class TimeIntersectionCheckEvent extends Event {
+
+    @Label("Id задачи")
+    public int taskId;
+
+    @Label("Размер доски")
+    public int boardSize;
+
+    @Label("Id пересекающейся задачи")
+    @Description("-1, если пересечения нет")
+    public int intersectingTaskId;
+}
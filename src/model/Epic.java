@@ -1,14 +1,14 @@
 package model;
 
+import util.IntArrayList;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 public class Epic extends Task {
 
-    private List<Integer> subtaskIds = new ArrayList<>();
+    private IntArrayList subtaskIds = new IntArrayList();
     private LocalDateTime endTime;
 
     public Epic(String title, String description) {
@@ -19,7 +19,7 @@ public class Epic extends Task {
         super(title, description, id, status);
     }
 
-    public Epic(String title, String description, int id, TaskStatus status, ArrayList<Integer> subtaskIds,
+    public Epic(String title, String description, int id, TaskStatus status, IntArrayList subtaskIds,
                 LocalDateTime startTime, LocalDateTime endTime, Duration duration) {
         super(title, description, id, status, startTime, duration);
         this.subtaskIds = subtaskIds;
@@ -30,8 +30,13 @@ public class Epic extends Task {
         super(description, name, status);
     }
 
-    public ArrayList<Integer> getSubtaskIds() {
-        return new ArrayList<>(subtaskIds);
+    public IntArrayList getSubtaskIds() {
+        return new IntArrayList(subtaskIds);
+    }
+
+    // Копия списка за O(1), см. IntArrayList.sharedCopy(): последующие изменения эпика в ней не видны.
+    public IntArrayList shareSubtaskIds() {
+        return subtaskIds.sharedCopy();
     }
 
     public TaskType getType() {
@@ -81,7 +86,7 @@ public class Epic extends Task {
     }
 
     public void deleteSubtaskId(int id) {
-        subtaskIds.remove(Integer.valueOf(id));
+        subtaskIds.removeValue(id);
     }
 
     public void clearSubtaskIds() {
@@ -0,0 +1,97 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * История просмотров для многопоточного менеджера. Просмотры и удаления не трогают список истории,
+ * а кладутся в неблокирующую очередь. Применяет их пачками один поток — тот, кто держит drainLock:
+ * писатель, заметивший BATCH_SIZE накопившихся событий, или getHistory(). Поэтому обёрнутая история
+ * не обязана быть потокобезопасной, а getHistory() видит все события, поставленные до её вызова.
+ * Просмотр, прочитанный до удаления задачи, может встать в очередь уже после события удаления,
+ * поэтому при применении просмотры задач, которых больше нет (exists), отбрасываются.
+ */
+public class AsyncHistoryManager implements HistoryManager {
+
+    static final int BATCH_SIZE = 256;
+
+    private static final class Event {
+        final Task task;
+        final int id;
+
+        Event(Task task, int id) {
+            this.task = task;
+            this.id = id;
+        }
+    }
+
+    private final HistoryManager history;
+    private final IntPredicate exists;
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    public AsyncHistoryManager(HistoryManager history) {
+        this(history, id -> true);
+    }
+
+    // exists должен становиться ложным до вызова removeFromHistory для того же id.
+    public AsyncHistoryManager(HistoryManager history, IntPredicate exists) {
+        this.history = history;
+        this.exists = exists;
+    }
+
+    @Override
+    public void addInHistory(Task task) {
+        publish(new Event(task, task.getId()));
+    }
+
+    @Override
+    public void removeFromHistory(int id) {
+        publish(new Event(null, id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void publish(Event event) {
+        events.offer(event);
+        // Если пачку уже применяет другой поток, он заберёт и это событие или следующий писатель.
+        if (pending.incrementAndGet() >= BATCH_SIZE && drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    private void drain() {
+        int applied = 0;
+        Event event;
+        while ((event = events.poll()) != null) {
+            if (event.task != null) {
+                if (exists.test(event.id)) {
+                    history.addInHistory(event.task);
+                }
+            } else {
+                history.removeFromHistory(event.id);
+            }
+            applied++;
+        }
+        pending.addAndGet(-applied);
+    }
+}
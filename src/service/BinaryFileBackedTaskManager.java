@@ -0,0 +1,43 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.Task;
+
+import java.io.*;
+import java.util.List;
+
+public class BinaryFileBackedTaskManager extends FileBackedTaskManager {
+
+    public BinaryFileBackedTaskManager(File file) {
+        this(file, DurabilityMode.NONE);
+    }
+
+    public BinaryFileBackedTaskManager(File file, DurabilityMode durabilityMode) {
+        super(file, durabilityMode);
+    }
+
+    public static BinaryFileBackedTaskManager loadFromFile(File file) {
+        BinaryFileBackedTaskManager binaryFileBackedTaskManager = new BinaryFileBackedTaskManager(file);
+        binaryFileBackedTaskManager.load();
+        return binaryFileBackedTaskManager;
+    }
+
+    @Override
+    protected void save() {
+        List<Task> snapshot = snapshotTasks();
+        replaceAtomically(file, outputStream -> BinaryTaskFormat.write(outputStream, snapshot));
+    }
+
+    @Override
+    protected List<Task> readSnapshot(File source) {
+        if (isEmptySnapshot(source)) {
+            return List.of();
+        }
+
+        try (MappedCsvReader.Mapping mapping = MappedCsvReader.map(source)) {
+            return BinaryTaskFormat.read(mapping.buffer());
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import util.IntArrayList;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Двоичный формат снапшота: заголовок (MAGIC, VERSION, число записей), затем записи
+ * с varint-идентификаторами, порядковыми номерами перечислений, временем в минутах от эпохи
+ * и строками UTF-8 с префиксом длины. Последние четыре байта — CRC32C всего предыдущего
+ * содержимого; файлы версии 1 без контрольной суммы по-прежнему читаются.
+ */
+public class BinaryTaskFormat {
+
+    public static final int MAGIC = 0x4A4B4231;
+    public static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_CHECKSUM = 1;
+    private static final int CHECKSUM_SIZE = Integer.BYTES;
+
+    private static final int HAS_START_TIME = 1;
+    private static final int HAS_END_TIME = 2;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+    private static final int MIN_RECORD_SIZE = 7;
+
+    public static void write(OutputStream outputStream, List<Task> tasks) throws IOException {
+        CRC32C checksum = new CRC32C();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(outputStream, checksum));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+        out.flush();
+        new DataOutputStream(outputStream).writeInt((int) checksum.getValue());
+    }
+
+    public static List<Task> read(ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является двоичным снапшотом задач");
+            }
+            int version = Byte.toUnsignedInt(in.get());
+            if (version == VERSION) {
+                verifyChecksum(in);
+            } else if (version != VERSION_WITHOUT_CHECKSUM) {
+                throw new ManagerSaveException("Неподдерживаемая версия двоичного снапшота: " + version);
+            }
+
+            long count = readVarLong(in);
+            // Каждая запись занимает не меньше MIN_RECORD_SIZE байт, так что битый счётчик не раздует список.
+            if (count < 0 || count > in.remaining() / MIN_RECORD_SIZE) {
+                throw new ManagerSaveException("Некорректное число записей в двоичном снапшоте: " + count);
+            }
+            List<Task> tasks = new ArrayList<>((int) count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(readTask(in));
+            }
+            return tasks;
+        } catch (BufferUnderflowException e) {
+            throw new ManagerSaveException("Двоичный снапшот обрезан");
+        } catch (DateTimeException | ArithmeticException | IllegalArgumentException e) {
+            throw new ManagerSaveException("Двоичный снапшот повреждён: " + e.getMessage());
+        }
+    }
+
+    // Контрольная сумма сверяется до разбора записей, а сами записи читаются без последних четырёх байт.
+    private static void verifyChecksum(ByteBuffer in) {
+        int end = in.limit() - CHECKSUM_SIZE;
+        if (end < in.position()) {
+            throw new BufferUnderflowException();
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(in.duplicate().position(0).limit(end));
+        if (in.getInt(end) != (int) checksum.getValue()) {
+            throw new ManagerSaveException("Контрольная сумма двоичного снапшота не совпадает");
+        }
+        in.limit(end);
+    }
+
+    public static void convertCsvToBinary(File csvFile, File binaryFile) {
+        FileBackedTaskManager csvManager = FileBackedTaskManager.loadFromFile(csvFile);
+        List<Task> snapshot = csvManager.snapshotTasks();
+        new BinaryFileBackedTaskManager(binaryFile).replaceAtomically(binaryFile, out -> write(out, snapshot));
+    }
+
+    public static void convertBinaryToCsv(File binaryFile, File csvFile) {
+        BinaryFileBackedTaskManager binaryManager = BinaryFileBackedTaskManager.loadFromFile(binaryFile);
+        binaryManager.writeSnapshot(csvFile, FileBackedTaskManager.TASK_FIELD_NAMES, binaryManager.snapshotRows());
+    }
+
+    private static void writeTask(DataOutput out, Task task) throws IOException {
+        LocalDateTime startTime = task.getStartTime();
+        LocalDateTime endTime = task.getType() == TaskType.EPIC ? task.getEndTime() : null;
+        int flags = (startTime != null ? HAS_START_TIME : 0) | (endTime != null ? HAS_END_TIME : 0);
+
+        out.writeByte(task.getType().ordinal());
+        out.writeByte(task.getStatus().ordinal());
+        out.writeByte(flags);
+        writeVarLong(out, task.getId());
+        if (task.getType() == TaskType.SUBTASK) {
+            writeVarLong(out, ((Subtask) task).getEpicId());
+        }
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        if (startTime != null) {
+            writeVarLong(out, zigZag(toEpochMinutes(startTime)));
+        }
+        if (endTime != null) {
+            writeVarLong(out, zigZag(toEpochMinutes(endTime)));
+        }
+        writeVarLong(out, zigZag(task.getDurationToMinutes()));
+    }
+
+    private static Task readTask(ByteBuffer in) {
+        TaskType type = TASK_TYPES[ordinal(in, TASK_TYPES.length, "тип задачи")];
+        TaskStatus status = TASK_STATUSES[ordinal(in, TASK_STATUSES.length, "статус задачи")];
+        int flags = in.get();
+        int id = (int) readVarLong(in);
+        int epicId = type == TaskType.SUBTASK ? (int) readVarLong(in) : 0;
+        String title = readString(in);
+        String description = readString(in);
+        LocalDateTime startTime = (flags & HAS_START_TIME) != 0 ? fromEpochMinutes(unZigZag(readVarLong(in))) : null;
+        LocalDateTime endTime = (flags & HAS_END_TIME) != 0 ? fromEpochMinutes(unZigZag(readVarLong(in))) : null;
+        Duration duration = Duration.ofMinutes(unZigZag(readVarLong(in)));
+
+        switch (type) {
+            case EPIC:
+                return new Epic(title, description, id, status, new IntArrayList(), startTime, endTime, duration);
+            case SUBTASK:
+                return new Subtask(title, description, id, status, epicId, startTime, duration);
+            default:
+                return new Task(title, description, id, status, startTime, duration);
+        }
+    }
+
+    private static int ordinal(ByteBuffer in, int size, String name) {
+        int ordinal = Byte.toUnsignedInt(in.get());
+        if (ordinal >= size) {
+            throw new ManagerSaveException("Некорректный " + name + " в двоичном снапшоте: " + ordinal);
+        }
+        return ordinal;
+    }
+
+    private static long toEpochMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinutes(long minutes) {
+        return LocalDateTime.ofEpochSecond(Math.multiplyExact(minutes, 60), 0, ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length - 1 > in.remaining()) {
+            throw new ManagerSaveException("Некорректная длина строки в двоичном снапшоте: " + length);
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Некорректное число в двоичном снапшоте");
+    }
+}
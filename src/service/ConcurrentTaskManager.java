@@ -0,0 +1,684 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import metrics.EpicStatusUpdateEvent;
+import metrics.TimeIntersectionCheckEvent;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import util.IntArrayList;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасный менеджер задач. Задачи хранятся в ConcurrentHashMap, id выдаёт AtomicInteger.
+ * Эпик и его подзадачи защищены одной из EPIC_LOCK_STRIPES блокировок, выбранной по id эпика,
+ * обычная задача — одной из TASK_LOCK_STRIPES блокировок по своему id, поэтому изменения разных
+ * эпиков и задач идут параллельно. Индекс интервалов для проверки пересечения по времени общий
+ * и защищён timeLock. Её берут только изменения, у которых старое или новое значение имеет окно
+ * времени, и deleteAllTasks. Это оставшаяся точка сериализации: изменения задач и подзадач
+ * со временем идут по одному, а задачи без времени её не касаются.
+ * Порядок захвата: блокировки эпиков или блокировки задач по возрастанию номера, затем timeLock;
+ * блокировки эпиков и задач одновременно не берутся.
+ * <p>
+ * Списочные методы читают неизменяемый снимок доски без блокировок. Каждое изменение
+ * под своими блокировками публикует новую версию снимка с копиями изменённых задач;
+ * общая часть деревьев переиспользуется, поэтому публикация стоит O(log n).
+ * get*ById тоже возвращают задачи из снимка: живые объекты меняются под блокировками и
+ * не должны читаться снаружи, например при сериализации ответа.
+ * История просмотров пишется через AsyncHistoryManager, так что get*ById остаются чтением.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private static final int EPIC_LOCK_STRIPES = 64;
+    private static final int TASK_LOCK_STRIPES = 64;
+
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final AtomicInteger id = new AtomicInteger();
+    private final HistoryManager historyManager;
+
+    private final ReentrantLock[] epicLocks = new ReentrantLock[EPIC_LOCK_STRIPES];
+    private final ReentrantLock[] taskLocks = new ReentrantLock[TASK_LOCK_STRIPES];
+    private final ReentrantLock timeLock = new ReentrantLock();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final Map<Integer, EpicAggregate> epicAggregates = new ConcurrentHashMap<>();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, PersistentTreeMap.empty(), PersistentTreeMap.empty(),
+                PersistentTreeMap.empty(), PersistentTreeMap.empty(InMemoryTaskManager.comparator));
+
+        final long version;
+        final PersistentTreeMap<Integer, Task> tasks;
+        final PersistentTreeMap<Integer, Epic> epics;
+        final PersistentTreeMap<Integer, Subtask> subtasks;
+        final PersistentTreeMap<Task, Task> prioritized;
+
+        Snapshot(long version, PersistentTreeMap<Integer, Task> tasks, PersistentTreeMap<Integer, Epic> epics,
+                 PersistentTreeMap<Integer, Subtask> subtasks, PersistentTreeMap<Task, Task> prioritized) {
+            this.version = version;
+            this.tasks = tasks;
+            this.epics = epics;
+            this.subtasks = subtasks;
+            this.prioritized = prioritized;
+        }
+
+        Snapshot withVersion(long version) {
+            return new Snapshot(version, tasks, epics, subtasks, prioritized);
+        }
+
+        Snapshot putTask(Task task) {
+            Task oldTask = tasks.get(task.getId());
+            return new Snapshot(version, tasks.put(task.getId(), task), epics, subtasks,
+                    (oldTask == null ? prioritized : prioritized.remove(oldTask)).put(task, task));
+        }
+
+        Snapshot removeTask(int id) {
+            Task oldTask = tasks.get(id);
+            if (oldTask == null) {
+                return this;
+            }
+            return new Snapshot(version, tasks.remove(id), epics, subtasks, prioritized.remove(oldTask));
+        }
+
+        Snapshot putEpic(Epic epic) {
+            return new Snapshot(version, tasks, epics.put(epic.getId(), epic), subtasks, prioritized);
+        }
+
+        Snapshot removeEpic(int id) {
+            return new Snapshot(version, tasks, epics.remove(id), subtasks, prioritized);
+        }
+
+        Snapshot putSubtask(Subtask subtask) {
+            Subtask oldSubtask = subtasks.get(subtask.getId());
+            return new Snapshot(version, tasks, epics, subtasks.put(subtask.getId(), subtask),
+                    (oldSubtask == null ? prioritized : prioritized.remove(oldSubtask)).put(subtask, subtask));
+        }
+
+        Snapshot removeSubtask(int id) {
+            Subtask oldSubtask = subtasks.get(id);
+            if (oldSubtask == null) {
+                return this;
+            }
+            return new Snapshot(version, tasks, epics, subtasks.remove(id), prioritized.remove(oldSubtask));
+        }
+    }
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistoryManager());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        // Задача удаляется из своей таблицы до того, как в историю уходит событие удаления.
+        this.historyManager = new AsyncHistoryManager(historyManager,
+                id -> tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id));
+        for (int i = 0; i < EPIC_LOCK_STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < TASK_LOCK_STRIPES; i++) {
+            taskLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    // Функция может быть вызвана повторно при гонке за публикацию, поэтому должна быть чистой.
+    private void publish(UnaryOperator<Snapshot> change) {
+        snapshot.updateAndGet(current -> change.apply(current).withVersion(current.version + 1));
+    }
+
+    private static Task copyOf(Task task) {
+        return new Task(task.getTitle(), task.getDescription(), task.getId(), task.getStatus(),
+                task.getStartTime(), task.getDuration());
+    }
+
+    private static Subtask copyOf(Subtask subtask) {
+        return new Subtask(subtask.getTitle(), subtask.getDescription(), subtask.getId(), subtask.getStatus(),
+                subtask.getEpicId(), subtask.getStartTime(), subtask.getDuration());
+    }
+
+    // Список подзадач не копируется, а делится с живым эпиком, поэтому публикация эпика стоит O(1).
+    private static Epic copyOf(Epic epic) {
+        return new Epic(epic.getTitle(), epic.getDescription(), epic.getId(), epic.getStatus(),
+                epic.shareSubtaskIds(), epic.getStartTime(), epic.getEndTime(), epic.getDuration());
+    }
+
+    private int generateId() {
+        return id.incrementAndGet();
+    }
+
+    private ReentrantLock epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, EPIC_LOCK_STRIPES)];
+    }
+
+    private ReentrantLock taskLock(int taskId) {
+        return taskLocks[Math.floorMod(taskId, TASK_LOCK_STRIPES)];
+    }
+
+    private static void lockAll(ReentrantLock[] locks) {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private static void unlockAll(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private void lockAllEpics() {
+        lockAll(epicLocks);
+    }
+
+    private void unlockAllEpics() {
+        unlockAll(epicLocks);
+    }
+
+    private static boolean hasTimeWindow(Task task) {
+        return task != null && task.getStartTime() != null;
+    }
+
+    // Индекс интервалов хранит только задачи со временем, поэтому timeLock нужна, лишь если окно
+    // есть у старого или нового значения. Вызывается под блокировкой задачи или её эпика,
+    // так что старое значение не меняется между проверкой и захватом.
+    private boolean lockTimeIfNeeded(Task oldValue, Task newValue) {
+        boolean timed = hasTimeWindow(oldValue) || hasTimeWindow(newValue);
+        if (timed) {
+            timeLock.lock();
+        }
+        return timed;
+    }
+
+    private void unlockTime(boolean locked) {
+        if (locked) {
+            timeLock.unlock();
+        }
+    }
+
+    // Вызывается под timeLock.
+    private void checkTimeIntersection(Task task) {
+        Optional<Task> intersectingTask = findOverlap(task);
+        if (intersectingTask.isPresent()) {
+            throw new ManagerSaveException(task.getTitle()
+                    + " пресекается с другой задачей по времени или продолжительности");
+        }
+    }
+
+    // Вызывается под timeLock.
+    private Optional<Task> findOverlap(Task task) {
+        TimeIntersectionCheckEvent event = new TimeIntersectionCheckEvent();
+        event.begin();
+        Optional<Task> intersectingTask = timeIndex.findOverlap(task);
+        if (event.shouldCommit()) {
+            event.taskId = task.getId();
+            event.boardSize = boardSize();
+            event.intersectingTaskId = intersectingTask.map(Task::getId).orElse(-1);
+            event.commit();
+        }
+        return intersectingTask;
+    }
+
+    // Вызывается под блокировкой эпика.
+    private void updateEpicStatus(Epic epic) {
+        EpicStatusUpdateEvent event = new EpicStatusUpdateEvent();
+        event.begin();
+        epicAggregate(epic.getId()).apply(epic);
+        if (event.shouldCommit()) {
+            event.epicId = epic.getId();
+            event.subtaskCount = epic.getSubtaskIds().size();
+            event.boardSize = boardSize();
+            event.status = String.valueOf(epic.getStatus());
+            event.commit();
+        }
+    }
+
+    private int boardSize() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    private void addInHistory(Task task) {
+        historyManager.addInHistory(task);
+    }
+
+    private void removeFromHistory(int id) {
+        historyManager.removeFromHistory(id);
+    }
+
+    // Задача со временем создаётся под timeLock без блокировки задачи: любое изменение,
+    // которое увидит её в таблице, тоже возьмёт timeLock и дождётся публикации.
+    @Override
+    public void createTask(Task task) {
+        if (!hasTimeWindow(task)) {
+            task.setId(generateId());
+            ReentrantLock lock = taskLock(task.getId());
+            lock.lock();
+            try {
+                tasks.put(task.getId(), task);
+                Task copy = copyOf(task);
+                publish(current -> current.putTask(copy));
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        timeLock.lock();
+        try {
+            checkTimeIntersection(task);
+            task.setId(generateId());
+            tasks.put(task.getId(), task);
+            timeIndex.add(task);
+            Task copy = copyOf(task);
+            publish(current -> current.putTask(copy));
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        epic.setId(generateId());
+        ReentrantLock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            epics.put(epic.getId(), epic);
+            Epic copy = copyOf(epic);
+            publish(current -> current.putEpic(copy));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                System.out.println("Такого эпика не существует");
+                return;
+            }
+
+            boolean timed = lockTimeIfNeeded(null, subtask);
+            try {
+                if (timed) {
+                    checkTimeIntersection(subtask);
+                }
+                subtask.setId(generateId());
+                subtasks.put(subtask.getId(), subtask);
+                if (timed) {
+                    timeIndex.add(subtask);
+                }
+            } finally {
+                unlockTime(timed);
+            }
+            epic.addSubtaskId(subtask.getId());
+            epicAggregate(epic.getId()).add(subtask);
+            updateEpicStatus(epic);
+            Subtask subtaskCopy = copyOf(subtask);
+            Epic epicCopy = copyOf(epic);
+            publish(current -> current.putSubtask(subtaskCopy).putEpic(epicCopy));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return snapshot.get().tasks.values();
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return snapshot.get().epics.values();
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return snapshot.get().subtasks.values();
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = snapshot.get().tasks.get(id);
+        if (task == null) {
+            System.out.println("Задачи с " + id + " id не существует");
+        } else {
+            addInHistory(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = snapshot.get().epics.get(id);
+        if (epic == null) {
+            System.out.println("Задачи с " + id + " id не существует");
+        } else {
+            addInHistory(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = snapshot.get().subtasks.get(id);
+        if (subtask == null) {
+            System.out.println("Задачи с " + id + " id не существует");
+        } else {
+            addInHistory(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int id) {
+        Snapshot current = snapshot.get();
+        Epic epic = current.epics.get(id);
+        if (epic == null) {
+            return Collections.emptyList();
+        }
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        List<Subtask> result = new ArrayList<>(subtaskIds.size());
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            Subtask subtask = current.subtasks.get(subtaskIds.get(i));
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        ReentrantLock lock = taskLock(id);
+        lock.lock();
+        try {
+            Task task = tasks.get(id);
+            if (task == null) {
+                System.out.println("Задачи с " + id + " id не существует");
+                return;
+            }
+            boolean timed = lockTimeIfNeeded(task, null);
+            try {
+                tasks.remove(id);
+                if (timed) {
+                    timeIndex.remove(id);
+                }
+                publish(current -> current.removeTask(id));
+                removeFromHistory(id);
+            } finally {
+                unlockTime(timed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                System.out.println("Задачи с " + id + " id не существует");
+                return;
+            }
+            epicAggregates.remove(id);
+            removeSubtasks(epic.getSubtaskIds().toArray());
+            publish(current -> current.removeEpic(id));
+            removeFromHistory(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой эпика, которому принадлежат подзадачи.
+    private void removeSubtasks(int[] subtaskIds) {
+        boolean timed = false;
+        for (int subtaskId : subtaskIds) {
+            timed |= hasTimeWindow(subtasks.get(subtaskId));
+        }
+        if (timed) {
+            timeLock.lock();
+        }
+        try {
+            for (int subtaskId : subtaskIds) {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (hasTimeWindow(subtask)) {
+                    timeIndex.remove(subtaskId);
+                }
+            }
+            publish(current -> {
+                Snapshot result = current;
+                for (int subtaskId : subtaskIds) {
+                    result = result.removeSubtask(subtaskId);
+                }
+                return result;
+            });
+            for (int subtaskId : subtaskIds) {
+                removeFromHistory(subtaskId);
+            }
+        } finally {
+            unlockTime(timed);
+        }
+    }
+
+    // Подзадача не может сменить эпик, поэтому блокировка, выбранная до захвата, остаётся верной.
+    @Override
+    public void deleteSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            System.out.println("Такой подзадачи не существует");
+            return;
+        }
+
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            if (!subtasks.containsKey(id)) {
+                System.out.println("Такой подзадачи не существует");
+                return;
+            }
+            removeSubtasks(new int[]{id});
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.deleteSubtaskId(id);
+                epicAggregate(epic.getId()).remove(id);
+                updateEpicStatus(epic);
+                Epic epicCopy = copyOf(epic);
+                publish(current -> current.putEpic(epicCopy));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        lockAll(taskLocks);
+        timeLock.lock();
+        try {
+            if (tasks.isEmpty()) {
+                System.out.println("Список задач пуст");
+                return;
+            }
+            List<Integer> deletedIds = new ArrayList<>(tasks.keySet());
+            deletedIds.forEach(timeIndex::remove);
+            tasks.clear();
+            publish(current -> {
+                Snapshot result = current;
+                for (Integer taskId : deletedIds) {
+                    result = result.removeTask(taskId);
+                }
+                return result;
+            });
+            deletedIds.forEach(this::removeFromHistory);
+        } finally {
+            timeLock.unlock();
+            unlockAll(taskLocks);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAllEpics();
+        try {
+            if (epics.isEmpty()) {
+                System.out.println("Список эпиков пуст");
+                return;
+            }
+            removeSubtasks(subtasks.keySet().stream().mapToInt(Integer::intValue).toArray());
+            List<Integer> deletedIds = new ArrayList<>(epics.keySet());
+            epics.clear();
+            deletedIds.forEach(this::removeFromHistory);
+            epicAggregates.clear();
+            publish(current -> new Snapshot(current.version, current.tasks, current.epics.clear(),
+                    current.subtasks, current.prioritized));
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        lockAllEpics();
+        try {
+            removeSubtasks(subtasks.keySet().stream().mapToInt(Integer::intValue).toArray());
+            List<Epic> epicCopies = new ArrayList<>();
+            for (Epic epic : epics.values()) {
+                epic.clearSubtaskIds();
+                epicAggregate(epic.getId()).clear();
+                updateEpicStatus(epic);
+                epicCopies.add(copyOf(epic));
+            }
+            publish(current -> {
+                Snapshot result = current;
+                for (Epic epicCopy : epicCopies) {
+                    result = result.putEpic(epicCopy);
+                }
+                return result;
+            });
+            System.out.println("Список подзадач пуст");
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        ReentrantLock lock = taskLock(task.getId());
+        lock.lock();
+        try {
+            Task existingTask = tasks.get(task.getId());
+            if (existingTask == null) {
+                return;
+            }
+            boolean timed = lockTimeIfNeeded(existingTask, task);
+            try {
+                if (timed) {
+                    Optional<Task> intersectingTask = findOverlap(task);
+                    if (intersectingTask.isPresent()) {
+                        throw new ManagerSaveException("Обновление задачи " + task.getTitle()
+                                + " пересекается по времени с задачей " + intersectingTask.get().getTitle());
+                    }
+                }
+                tasks.put(task.getId(), task);
+                if (timed) {
+                    timeIndex.add(task);
+                }
+                Task copy = copyOf(task);
+                publish(current -> current.putTask(copy));
+            } finally {
+                unlockTime(timed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        ReentrantLock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            Epic existingEpic = epics.get(epic.getId());
+            if (existingEpic == null) {
+                System.out.println("Такого эпика не существует");
+                return;
+            }
+            existingEpic.setTitle(epic.getTitle());
+            existingEpic.setDescription(epic.getDescription());
+            updateEpicStatus(existingEpic);
+            Epic copy = copyOf(existingEpic);
+            publish(current -> current.putEpic(copy));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            Subtask existingSubtask = subtasks.get(subtask.getId());
+            if (existingSubtask == null || existingSubtask.getEpicId() != subtask.getEpicId()) {
+                return;
+            }
+
+            boolean timed = lockTimeIfNeeded(existingSubtask, subtask);
+            try {
+                if (timed && findOverlap(subtask).isPresent()) {
+                    return;
+                }
+                subtasks.put(subtask.getId(), subtask);
+                if (timed) {
+                    timeIndex.add(subtask);
+                }
+            } finally {
+                unlockTime(timed);
+            }
+            Epic epic = epics.get(subtask.getEpicId());
+            epicAggregate(epic.getId()).add(subtask);
+            updateEpicStatus(epic);
+            Subtask subtaskCopy = copyOf(subtask);
+            Epic epicCopy = copyOf(epic);
+            publish(current -> current.putSubtask(subtaskCopy).putEpic(epicCopy));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой эпика.
+    private EpicAggregate epicAggregate(int epicId) {
+        return epicAggregates.computeIfAbsent(epicId, key -> new EpicAggregate());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return snapshot.get().prioritized.values();
+    }
+}
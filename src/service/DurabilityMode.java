@@ -0,0 +1,7 @@
+package service;
+
+public enum DurabilityMode {
+    NONE,
+    FSYNC_PER_WRITE,
+    GROUP_COMMIT
+}
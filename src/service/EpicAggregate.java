@@ -0,0 +1,101 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.TaskStatus;
+import util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Счётчики статусов, суммарная продолжительность и мультимножества времён начала и окончания
+ * подзадач одного эпика. Вклад подзадачи запоминается при добавлении, поэтому её можно
+ * убрать, даже если сам объект уже изменён. Изменение стоит O(log n), apply — O(log n).
+ */
+public class EpicAggregate {
+
+    private static class Contribution {
+        final TaskStatus status;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        final Duration duration;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getStartTime() == null || subtask.getDuration() == null
+                    ? subtask.getStartTime() : subtask.getEndTime();
+            this.duration = subtask.getDuration() == null ? Duration.ZERO : subtask.getDuration();
+        }
+    }
+
+    private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private int newCount;
+    private int doneCount;
+    private Duration totalDuration = Duration.ZERO;
+
+    public void add(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(subtask);
+        contributions.put(subtask.getId(), contribution);
+        if (contribution.status == TaskStatus.NEW) {
+            newCount++;
+        } else if (contribution.status == TaskStatus.DONE) {
+            doneCount++;
+        }
+        totalDuration = totalDuration.plus(contribution.duration);
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+    }
+
+    public void remove(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        if (contribution.status == TaskStatus.NEW) {
+            newCount--;
+        } else if (contribution.status == TaskStatus.DONE) {
+            doneCount--;
+        }
+        totalDuration = totalDuration.minus(contribution.duration);
+        if (contribution.startTime != null) {
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    public void clear() {
+        contributions.clear();
+        startTimes.clear();
+        endTimes.clear();
+        newCount = 0;
+        doneCount = 0;
+        totalDuration = Duration.ZERO;
+    }
+
+    // Все подзадачи NEW (или их нет) — NEW, все DONE — DONE, иначе IN_PROGRESS.
+    public void apply(Epic epic) {
+        int total = contributions.size();
+        if (total == newCount) {
+            epic.setStatus(TaskStatus.NEW);
+        } else if (total == doneCount) {
+            epic.setStatus(TaskStatus.DONE);
+        } else {
+            epic.setStatus(TaskStatus.IN_PROGRESS);
+        }
+        epic.setStartTime(startTimes.isEmpty() ? null : startTimes.firstKey());
+        epic.setEndTime(endTimes.isEmpty() ? null : endTimes.lastKey());
+        epic.setDuration(totalDuration);
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
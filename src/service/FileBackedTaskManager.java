@@ -1,55 +1,166 @@
 package service;
 
 import exceptions.ManagerSaveException;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.PersistenceSaveEvent;
 import model.*;
+import util.IntArrayList;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
 
-    private final File file;
-    private static final String TASK_FIELD_NAMES = "id,type,name,status,description,epic_id," +
+    protected final File file;
+    protected final DurabilityMode durabilityMode;
+    protected static final String TASK_FIELD_NAMES = "id,type,name,status,description,epic_id," +
             "start_time,end_time,duration";
+    private static final String CHECKSUM_MARK = ";crc32c";
+    private static final String CHECKSUM_PREFIX = "crc32c=";
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yy HH:mm");
 
+    private final Histogram snapshotSaveDuration = saveDuration(getClass(), "snapshot");
+
+    protected interface SnapshotWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
     public FileBackedTaskManager(File file) {
+        this(file, DurabilityMode.NONE);
+    }
+
+    public FileBackedTaskManager(File file, DurabilityMode durabilityMode) {
         this.file = file;
+        this.durabilityMode = durabilityMode;
+    }
+
+    // Метка manager — класс наследника, чтобы CSV, бинарный и журналируемый менеджеры различались.
+    protected static Histogram saveDuration(Class<? extends FileBackedTaskManager> manager, String operation) {
+        return MetricsRegistry.DEFAULT.histogram("kanban_persistence_save_seconds",
+                "Длительность записи задач на диск", "manager", manager.getSimpleName(), "operation", operation);
     }
 
-    private void save() {
+    protected final void commitSaveEvent(PersistenceSaveEvent event, String operation, File target) {
+        event.manager = getClass().getSimpleName();
+        event.operation = operation;
+        event.path = target.getPath();
+        event.boardSize = boardSize();
+        event.commit();
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            writer.write(TASK_FIELD_NAMES);
-            writer.newLine();
+    protected void save() {
+        writeSnapshot(file, TASK_FIELD_NAMES, snapshotRows());
+    }
 
-            for (Task task : getTasks()) {
-                writer.write(toStringTask(task));
+    protected List<String> snapshotRows() {
+        List<String> rows = new ArrayList<>();
+        for (Task task : snapshotTasks()) {
+            rows.add(toCsvString(task));
+        }
+        return rows;
+    }
+
+    protected List<Task> snapshotTasks() {
+        List<Task> snapshot = new ArrayList<>(getTasks());
+        for (Epic epic : getEpics()) {
+            snapshot.add(epic);
+            snapshot.addAll(getSubtasksByEpicId(epic.getId()));
+        }
+        return snapshot;
+    }
+
+    // Последней строкой дописывается CRC32C всего предыдущего содержимого,
+    // а пометка в заголовке говорит загрузчику, что без этой строки файл неполный.
+    protected void writeSnapshot(File target, String header, List<String> rows) {
+        replaceAtomically(target, outputStream -> {
+            CRC32C checksum = new CRC32C();
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new CheckedOutputStream(outputStream, checksum), StandardCharsets.UTF_8));
+            writer.write(header + CHECKSUM_MARK);
+            writer.newLine();
+            for (String row : rows) {
+                writer.write(row);
                 writer.newLine();
             }
-            for (Epic epic : getEpics()) {
-                writer.write(toStringEpic(epic) + "\n");
-                for (Subtask subtask : getSubtasksByEpicId(epic.getId())) {
-                    writer.write(toStringSubtask(subtask) + "\n");
+            writer.flush();
+            outputStream.write((CHECKSUM_PREFIX + String.format("%08x", checksum.getValue())
+                    + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    // Новый снапшот пишется во временный файл и переименовывается поверх старого,
+    // старый при этом сохраняется как предыдущее поколение. Снапшот пишется одной операцией,
+    // поэтому GROUP_COMMIT для него равносилен FSYNC_PER_WRITE.
+    protected void replaceAtomically(File target, SnapshotWriter snapshotWriter) {
+        File tempFile = new File(target.getPath() + ".tmp");
+        PersistenceSaveEvent event = new PersistenceSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+                snapshotWriter.write(bufferedOutputStream);
+                bufferedOutputStream.flush();
+                if (durabilityMode != DurabilityMode.NONE) {
+                    outputStream.getChannel().force(false);
                 }
             }
+            if (target.exists()) {
+                Files.move(target.toPath(), previousGeneration(target).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            if (durabilityMode != DurabilityMode.NONE) {
+                forceDirectory(target.getAbsoluteFile().getParentFile());
+            }
+            if (event.shouldCommit()) {
+                event.bytesWritten = target.length();
+                commitSaveEvent(event, "snapshot", target);
+            }
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
+        } finally {
+            snapshotSaveDuration.recordNanos(System.nanoTime() - start);
         }
     }
 
-    private static Task fromString(String str) {
-        String[] part = str.split(",");
+    private static void forceDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Не все файловые системы позволяют открыть каталог, переименование тогда остаётся на ОС.
+        }
+    }
+
+    protected static File previousGeneration(File file) {
+        return new File(file.getPath() + ".prev");
+    }
+
+    protected static boolean snapshotExists(File file) {
+        return file.exists() || previousGeneration(file).exists();
+    }
+
+    protected static Task fromString(String str) {
+        String[] part = str.split(",", -1);
         int id = Integer.parseInt(part[0]);
         TaskType type = TaskType.valueOf(part[1]);
-        String title = part[2];
+        String title = unescapeField(part[2]);
         TaskStatus status = TaskStatus.valueOf(part[3]);
-        String description = part[4];
-        int epicId = Integer.parseInt(part[5]);
+        String description = unescapeField(part[4]);
+        int epicId = part[5].isEmpty() ? 0 : Integer.parseInt(part[5]);
 
         LocalDateTime startTime = null;
         if (!part[6].equals("null")) {
@@ -67,8 +178,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             case TASK:
                 return new Task(title, description, id, status, startTime, duration);
             case EPIC:
-                ArrayList<Integer> subtaskIds = new ArrayList<>();
-                return new Epic(title, description, id, status, subtaskIds, startTime, endTime, duration);
+                return new Epic(title, description, id, status, new IntArrayList(), startTime, endTime, duration);
             case SUBTASK:
                 return new Subtask(title, description, id, status, epicId, startTime, duration);
             default:
@@ -78,53 +188,201 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     public static FileBackedTaskManager loadFromFile(File file) {
         FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file);
-        int maxId = 0;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            reader.readLine();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
+        fileBackedTaskManager.load();
+        return fileBackedTaskManager;
+    }
 
-                Task task = fromString(line);
-                maxId = Math.max(maxId, task.getId());
-
-                switch (task.getType()) {
-                    case TASK:
-                        fileBackedTaskManager.addTask(task);
-                        fileBackedTaskManager.prioritizedTasks.add(task);
-                        break;
-                    case EPIC:
-                        fileBackedTaskManager.addEpic((Epic) task);
-                        break;
-                    case SUBTASK:
-                        fileBackedTaskManager.addSubtask((Subtask) task);
-                        fileBackedTaskManager.prioritizedTasks.add(task);
-                        break;
-                }
+    protected void load() {
+        List<Task> loaded;
+        try {
+            loaded = readSnapshot(file);
+        } catch (ManagerSaveException e) {
+            File previous = previousGeneration(file);
+            if (!previous.exists()) {
+                throw e;
             }
+            System.out.println("Снапшот " + file.getName() + " повреждён (" + e.getMessage()
+                    + "), загружается предыдущая версия");
+            loaded = readSnapshot(previous);
+        }
 
-            for (Subtask subtask : fileBackedTaskManager.subtasks.values()) {
-                Epic epic = fileBackedTaskManager.epics.get(subtask.getEpicId());
-                epic.addSubtaskId(subtask.getId());
+        int maxId = 0;
+        for (Task task : loaded) {
+            maxId = Math.max(maxId, task.getId());
+        }
+        restoreAll(loaded);
+        id = Math.max(id, maxId + 1);
+    }
+
+    // Подзадача может стоять в файле раньше своего эпика (файл правили вручную или склеили
+    // из частей), поэтому такие подзадачи привязываются к эпикам после восстановления всех записей.
+    protected void restoreAll(List<Task> loaded) {
+        List<Subtask> beforeEpic = new ArrayList<>();
+        for (Task task : loaded) {
+            if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                beforeEpic.add(subtask);
             }
+            restore(task);
+        }
+        for (Subtask subtask : beforeEpic) {
+            linkSubtask(subtask);
+        }
+    }
 
+    // Файл целиком разбирается и проверяется до восстановления задач,
+    // чтобы при откате на предыдущее поколение менеджер оставался пустым.
+    protected List<Task> readSnapshot(File source) {
+        if (isEmptySnapshot(source)) {
+            return List.of();
+        }
+        try (MappedCsvReader.Mapping mapping = MappedCsvReader.map(source)) {
+            ByteBuffer buffer = mapping.buffer();
+            MappedCsvReader reader = new MappedCsvReader(buffer, 0, buffer.limit());
+            String header = reader.readLine();
+            int end = buffer.limit();
+            if (header != null && header.endsWith(CHECKSUM_MARK)) {
+                end = verifyChecksum(buffer, source);
+                header = header.substring(0, header.length() - CHECKSUM_MARK.length());
+            }
+            readHeader(header);
+            return ParallelSnapshotLoader.parse(buffer, reader.position(), end);
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
+        }
+    }
 
+    // Пустой файл — новая доска, только если предыдущего поколения нет. Сохранение никогда не пишет
+    // пустой файл, поэтому пустой снапшот рядом с .prev — обрезанная запись, и загрузка откатывается на .prev.
+    protected static boolean isEmptySnapshot(File source) {
+        if (source.length() != 0) {
+            return false;
+        }
+        if (previousGeneration(source).exists()) {
+            throw new ManagerSaveException("Снапшот " + source.getName() + " пуст, хотя есть предыдущая версия");
+        }
+        return true;
+    }
+
+    private static int verifyChecksum(ByteBuffer buffer, File source) {
+        int end = buffer.limit();
+        while (end > 0 && (buffer.get(end - 1) == '\n' || buffer.get(end - 1) == '\r')) {
+            end--;
+        }
+        int trailerStart = end;
+        while (trailerStart > 0 && buffer.get(trailerStart - 1) != '\n') {
+            trailerStart--;
+        }
+
+        byte[] trailer = new byte[end - trailerStart];
+        buffer.get(trailerStart, trailer);
+        String checksumLine = new String(trailer, StandardCharsets.UTF_8);
+        if (!checksumLine.startsWith(CHECKSUM_PREFIX)) {
+            throw new ManagerSaveException("В снапшоте " + source.getName() + " нет контрольной суммы");
+        }
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().position(0).limit(trailerStart));
+        if (!checksumLine.equals(CHECKSUM_PREFIX + String.format("%08x", checksum.getValue()))) {
+            throw new ManagerSaveException("Контрольная сумма снапшота " + source.getName() + " не совпадает");
+        }
+        return trailerStart;
+    }
+
+    protected void readHeader(String header) {
+    }
+
+    protected void restore(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                addTask(task);
+                addPrioritized(task);
+                break;
+            case EPIC:
+                addEpic((Epic) task);
+                break;
+            case SUBTASK:
+                addSubtask((Subtask) task);
+                addPrioritized(task);
+                break;
+        }
+    }
+
+    // Название и описание могут содержать запятые и переводы строк, которые разделяют поля и записи
+    // снапшота и журнала. Они заменяются на \c, \n и \r, сама обратная косая черта — на \\.
+    static String escapeField(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '\\' -> "\\\\";
+                case ',' -> "\\c";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    // Неизвестные последовательности остаются как есть.
+    static String unescapeField(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = value.charAt(i + 1);
+            switch (next) {
+                case '\\' -> unescaped.append('\\');
+                case 'c' -> unescaped.append(',');
+                case 'n' -> unescaped.append('\n');
+                case 'r' -> unescaped.append('\r');
+                default -> {
+                    unescaped.append(c);
+                    continue;
+                }
+            }
+            i++;
+        }
+        return unescaped.toString();
+    }
+
+    protected String toCsvString(Task task) {
+        switch (task.getType()) {
+            case EPIC:
+                return toStringEpic((Epic) task);
+            case SUBTASK:
+                return toStringSubtask((Subtask) task);
+            default:
+                return toStringTask(task);
         }
-        fileBackedTaskManager.id = maxId + 1;
-        return fileBackedTaskManager;
     }
 
     public String toStringTask(Task task) {
         return task.getId() + ","
                 + task.getType() + ","
-                + task.getTitle() + ","
+                + escapeField(task.getTitle()) + ","
                 + task.getStatus() + ","
-                + task.getDescription() + ","
+                + escapeField(task.getDescription()) + ","
+                + ","
                 + task.getStartTimeToString() + ","
                 + task.getEndTimeToString() + ","
                 + task.getDurationToMinutes();
@@ -133,96 +391,112 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     private String toStringEpic(Epic epic) {
         return epic.getId() + ","
                 + epic.getType() + ","
-                + epic.getTitle() + ","
+                + escapeField(epic.getTitle()) + ","
                 + epic.getStatus() + ","
-                + epic.getDescription() + ","
-                + epic.getSubtaskIds().toString().replace("[", "")
-                .replace("]", "") + ","
+                + escapeField(epic.getDescription()) + ","
+                + ","
                 + epic.getStartTimeToString() + ","
                 + epic.getEndTimeToString() + ","
-                + epic.getDuration().toString();
+                + epic.getDurationToMinutes();
     }
 
     private String toStringSubtask(Subtask subtask) {
         return subtask.getId() + ","
                 + subtask.getType() + ","
-                + subtask.getTitle() + ","
+                + escapeField(subtask.getTitle()) + ","
                 + subtask.getStatus() + ","
-                + subtask.getDescription() + ","
+                + escapeField(subtask.getDescription()) + ","
                 + subtask.getEpicId() + ","
                 + subtask.getStartTimeToString() + ","
                 + subtask.getEndTimeToString() + ","
-                + subtask.getDuration().toString();
+                + subtask.getDurationToMinutes();
+    }
+
+    // Вызывается под монитором менеджера до изменения доски: наследник может отклонить изменение,
+    // пока в памяти ещё ничего не поменялось.
+    protected void checkWritable() {
     }
 
     @Override
-    public void createTask(Task task) {
+    public synchronized void createTask(Task task) {
+        checkWritable();
         super.createTask(task);
         save();
     }
 
     @Override
-    public void createEpic(Epic epic) {
+    public synchronized void createEpic(Epic epic) {
+        checkWritable();
         super.createEpic(epic);
         save();
     }
 
     @Override
-    public void createSubtask(Subtask subtask) {
+    public synchronized void createSubtask(Subtask subtask) {
+        checkWritable();
         super.createSubtask(subtask);
         save();
     }
 
     @Override
-    public void deleteSubtaskById(int id) {
+    public synchronized void deleteSubtaskById(int id) {
+        checkWritable();
         super.deleteSubtaskById(id);
         save();
     }
 
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
+        checkWritable();
         super.deleteEpicById(id);
         save();
     }
 
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
+        checkWritable();
         super.deleteTaskById(id);
         save();
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
+        checkWritable();
         super.updateTask(task);
         save();
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
+        checkWritable();
         super.updateEpic(epic);
         save();
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
+        checkWritable();
         super.updateSubtask(subtask);
         save();
     }
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
+        checkWritable();
         super.deleteAllTasks();
         save();
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
+        checkWritable();
         super.deleteAllEpics();
         save();
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
+        checkWritable();
         super.deleteAllSubtasks();
         save();
     }
@@ -6,7 +6,17 @@ import java.util.List;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final LinkedListCustom history = new LinkedListCustom();
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final LinkedListCustom history;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        history = new LinkedListCustom(capacity);
+    }
 
     @Override
     public void addInHistory(Task task) {
@@ -1,29 +1,49 @@
 package service;
 
 import exceptions.ManagerSaveException;
+import metrics.EpicStatusUpdateEvent;
+import metrics.TimeIntersectionCheckEvent;
 import model.Epic;
 import model.Subtask;
 import model.Task;
-import model.TaskStatus;
+import util.IntArrayList;
+import util.IntObjectHashMap;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected HashMap<Integer, Task> tasks = new HashMap<>();
-    protected HashMap<Integer, Epic> epics = new HashMap<>();
-    protected HashMap<Integer, Subtask> subtasks = new HashMap<>();
+    protected IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    protected IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+    protected IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
 
-    protected HistoryManager historyManager = Managers.getDefaultHistoryManager();
+    protected HistoryManager historyManager;
 
     protected int id = 0;
 
     static final Comparator<Task> comparator = Comparator.comparing(Task::getStartTime,
             Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Task::getId);
-    protected Set<Task> prioritizedTasks = new TreeSet<>(comparator);
+    // Ключ фиксирует время начала на момент вставки: задачу, изменённую "на месте", можно удалить по id
+    // за O(log n), даже если её startTime уже другой.
+    private record PriorityKey(LocalDateTime startTime, int id) {
+    }
+
+    private static final Comparator<PriorityKey> PRIORITY_ORDER = Comparator.comparing(PriorityKey::startTime,
+            Comparator.nullsLast(Comparator.naturalOrder())).thenComparingInt(PriorityKey::id);
+    private final NavigableMap<PriorityKey, Task> prioritizedTasks = new TreeMap<>(PRIORITY_ORDER);
+    private final IntObjectHashMap<PriorityKey> priorityKeys = new IntObjectHashMap<>();
+    protected TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final IntObjectHashMap<EpicAggregate> epicAggregates = new IntObjectHashMap<>();
+    private volatile long version = 0;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistoryManager());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
 
     private int generateId() {
         return ++id;
@@ -38,13 +58,16 @@ public class InMemoryTaskManager implements TaskManager {
         }
         task.setId(generateId());
         tasks.put(task.getId(), task);
-        prioritizedTasks.add(task);
+        addPrioritized(task);
+        bumpVersion();
     }
 
     @Override
     public void createEpic(Epic epic) {
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+        bumpVersion();
     }
 
     @Override
@@ -58,52 +81,92 @@ public class InMemoryTaskManager implements TaskManager {
             }
             epics.get(subtask.getEpicId()).addSubtaskId(subtask.getId());
             subtasks.put(subtask.getId(), subtask);
-            prioritizedTasks.add(subtask);
+            addPrioritized(subtask);
+            epicAggregate(subtask.getEpicId()).add(subtask);
             updateEpicStatus(subtask.getEpicId());
+            bumpVersion();
         } else {
             System.out.println("Такого эпика не существует");
         }
     }
 
+    // Версия увеличивается после изменения, а не до него: читатель, который запомнил версию и затем
+    // прочитал данные, в худшем случае получит более свежие данные под старой версией, но не наоборот.
+    protected void bumpVersion() {
+        version++;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
     private void updateIdAfterLoad(int loadedId) {
         if (loadedId > id) {
             id = loadedId;
         }
     }
 
+    protected void addPrioritized(Task task) {
+        removePrioritized(task);
+        PriorityKey key = new PriorityKey(task.getStartTime(), task.getId());
+        priorityKeys.put(task.getId(), key);
+        prioritizedTasks.put(key, task);
+        timeIndex.add(task);
+    }
+
+    protected void removePrioritized(Task task) {
+        PriorityKey key = priorityKeys.remove(task.getId());
+        if (key != null) {
+            prioritizedTasks.remove(key);
+        }
+        timeIndex.remove(task.getId());
+    }
+
     protected void addTask(Task task) {
         tasks.put(task.getId(), task);
         updateIdAfterLoad(task.getId());
+        bumpVersion();
     }
 
     protected void addEpic(Epic epic) {
         epics.put(epic.getId(), epic);
+        epicAggregates.put(epic.getId(), new EpicAggregate());
         updateIdAfterLoad(epic.getId());
+        bumpVersion();
     }
 
     protected void addSubtask(Subtask subtask) {
         subtasks.put(subtask.getId(), subtask);
         updateIdAfterLoad(subtask.getId());
+        linkSubtask(subtask);
+        bumpVersion();
+    }
 
-        if (epics.containsKey(subtask.getId())) {
-            epics.get(subtask.getEpicId()).addSubtaskId(subtask.getId());
-            updateEpicStatus(subtask.getEpicId());
+    // Добавляет подзадачу в эпик, если он уже загружен.
+    protected void linkSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) {
+            return;
         }
+        epic.addSubtaskId(subtask.getId());
+        epicAggregate(subtask.getEpicId()).add(subtask);
+        updateEpicStatus(subtask.getEpicId());
     }
 
     @Override
     public List<Task> getTasks() {
-        return tasks.values().stream().toList();
+        return Collections.unmodifiableList(tasks.values());
     }
 
     @Override
     public List<Epic> getEpics() {
-        return epics.values().stream().toList();
+        return Collections.unmodifiableList(epics.values());
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return subtasks.values().stream().toList();
+        return Collections.unmodifiableList(subtasks.values());
     }
 
     @Override
@@ -143,18 +206,24 @@ public class InMemoryTaskManager implements TaskManager {
             return Collections.emptyList();
         }
 
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        List<Subtask> result = new ArrayList<>(subtaskIds.size());
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            Subtask subtask = subtasks.get(subtaskIds.get(i));
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
     }
 
     @Override
     public void deleteTaskById(int id) {
         if (tasks.containsKey(id)) {
-            prioritizedTasks.remove(tasks.get(id));
+            removePrioritized(tasks.get(id));
             historyManager.removeFromHistory(id);
             tasks.remove(id);
+            bumpVersion();
         } else {
             System.out.println("Задачи с " + id + " id не существует");
         }
@@ -163,14 +232,11 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteEpicById(int id) {
         if (epics.containsKey(id)) {
-            ArrayList<Integer> subtasksIds = epics.get(id).getSubtaskIds();
-            for (Integer subtasksId : subtasksIds) {
-                prioritizedTasks.remove(subtasks.get(subtasksId));
-                historyManager.removeFromHistory(subtasksId);
-                subtasks.remove(subtasksId);
-            }
+            removeSubtasksOf(epics.get(id));
             historyManager.removeFromHistory(id);
             epics.remove(id);
+            epicAggregates.remove(id);
+            bumpVersion();
         } else {
             System.out.println("Задачи с " + id + " id не существует");
         }
@@ -181,10 +247,12 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtasks.containsKey(id)) {
             int epicId = subtasks.get(id).getEpicId();
             epics.get(epicId).deleteSubtaskId(id);
-            prioritizedTasks.remove(subtasks.get(id));
+            removePrioritized(subtasks.get(id));
             historyManager.removeFromHistory(id);
             subtasks.remove(id);
-            recalculateEpicStatus(epics.get(epicId));
+            epicAggregate(epicId).remove(id);
+            updateEpicStatus(epicId);
+            bumpVersion();
         } else {
             System.out.println("Такой подзадачи не существует");
         }
@@ -193,11 +261,12 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteAllTasks() {
         if (!tasks.isEmpty()) {
-            for (Integer id : tasks.keySet()) {
-                historyManager.removeFromHistory(id);
-                prioritizedTasks.remove(tasks.get(id));
-            }
+            tasks.forEach((taskId, task) -> {
+                historyManager.removeFromHistory(taskId);
+                removePrioritized(task);
+            });
             tasks.clear();
+            bumpVersion();
         } else {
             System.out.println("Список задач пуст");
         }
@@ -206,16 +275,13 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteAllEpics() {
         if (!epics.isEmpty()) {
-            for (Integer epicId : epics.keySet()) {
-                List<Integer> subtasksIds = epics.get(epicId).getSubtaskIds();
-                for (Integer subtasksId : subtasksIds) {
-                    prioritizedTasks.remove(subtasks.get(subtasksId));
-                    historyManager.removeFromHistory(subtasksId);
-                    subtasks.remove(subtasksId);
-                }
+            epics.forEach((epicId, epic) -> {
+                removeSubtasksOf(epic);
                 historyManager.removeFromHistory(epicId);
-            }
+            });
             epics.clear();
+            epicAggregates.clear();
+            bumpVersion();
         } else {
             System.out.println("Список эпиков пуст");
         }
@@ -225,13 +291,15 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteAllSubtasks() {
         for (Epic epic : epics.values()) {
             epic.clearSubtaskIds();
+            epicAggregate(epic.getId()).clear();
             updateEpicStatus(epic.getId());
         }
-        for (Integer id : subtasks.keySet()) {
-            prioritizedTasks.remove(subtasks.get(id));
-            historyManager.removeFromHistory(id);
-        }
+        subtasks.forEach((subtaskId, subtask) -> {
+            removePrioritized(subtask);
+            historyManager.removeFromHistory(subtaskId);
+        });
         subtasks.clear();
+        bumpVersion();
         System.out.println("Список подзадач пуст");
     }
 
@@ -243,11 +311,10 @@ public class InMemoryTaskManager implements TaskManager {
                 throw new ManagerSaveException("Обновление задачи " + task.getTitle()
                         + " пересекается по времени с задачей " + intersectingTask.get().getTitle());
             }
+            removePrioritized(tasks.get(task.getId()));
             tasks.put(task.getId(), task);
-            if (task.getStartTime() != null) {
-                prioritizedTasks.removeIf(prioritizedTask -> prioritizedTask.getId() == task.getId());
-                prioritizedTasks.add(task);
-            }
+            addPrioritized(task);
+            bumpVersion();
         }
     }
 
@@ -258,6 +325,7 @@ public class InMemoryTaskManager implements TaskManager {
             existingEpic.setTitle(epic.getTitle());
             existingEpic.setDescription(epic.getDescription());
             updateEpicStatus(epic.getId());
+            bumpVersion();
         } else {
             System.out.println("Такого эпика не существует");
         }
@@ -272,104 +340,69 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         if (subtasks.get(id).getEpicId() == subtask.getEpicId()) {
-            prioritizedTasks.remove(subtasks.get(id));
-            prioritizedTasks.add(subtask);
+            removePrioritized(subtasks.get(id));
+            addPrioritized(subtask);
             subtasks.put(id, subtask);
-            recalculateEpicStatus(epics.get(subtask.getEpicId()));
+            epicAggregate(subtask.getEpicId()).add(subtask);
+            updateEpicStatus(subtask.getEpicId());
+            bumpVersion();
         }
     }
 
-    private void updateEpicStatus(int id) {
-        Epic epic = epics.get(id);
-        if (epic == null) {
-            System.out.println("Эпика с id " + id + " не существует.");
-            return;
+    private void removeSubtasksOf(Epic epic) {
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            int subtaskId = subtaskIds.get(i);
+            Subtask subtask = subtasks.remove(subtaskId);
+            if (subtask != null) {
+                removePrioritized(subtask);
+            }
+            historyManager.removeFromHistory(subtaskId);
         }
+    }
 
-        List<Integer> subtaskIds = epic.getSubtaskIds();
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(Duration.ZERO);
-            return;
-        }
-
-        Map<TaskStatus, Long> statusCount = epics.get(id).getSubtaskIds().stream()
-                .map(subtasks::get)
-                .collect(Collectors.groupingBy(Subtask::getStatus, Collectors.counting()));
-
-        long statusNew = statusCount.getOrDefault(TaskStatus.NEW, 0L);
-        long statusDone = statusCount.getOrDefault(TaskStatus.DONE, 0L);
-        long total = epics.get(id).getSubtaskIds().size();
-
-        if (total == statusNew || total == 0) {
-            epics.get(id).setStatus(TaskStatus.NEW);
-        } else if (total == statusDone) {
-            epics.get(id).setStatus(TaskStatus.DONE);
-        } else {
-            epics.get(id).setStatus(TaskStatus.IN_PROGRESS);
+    private EpicAggregate epicAggregate(int epicId) {
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+            epicAggregates.put(epicId, aggregate);
         }
+        return aggregate;
     }
 
-    private void recalculateEpicStatus(Epic epic) {
-        List<Subtask> subtaskList = getSubtasksByEpicId(epic.getId());
-
-        if (subtaskList.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(Duration.ZERO);
+    private void updateEpicStatus(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            System.out.println("Эпика с id " + id + " не существует.");
             return;
         }
-
-        long statusInProgress = subtaskList.stream()
-                .filter(subtask -> subtask.getStatus() == TaskStatus.IN_PROGRESS).count();
-        long statusDone = subtaskList.stream()
-                .filter(subtask -> subtask.getStatus() == TaskStatus.DONE).count();
-
-        if (statusInProgress == subtaskList.size()) {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
-        } else if (statusDone == subtaskList.size()) {
-            epic.setStatus(TaskStatus.DONE);
-        } else {
-            epic.setStatus(TaskStatus.NEW);
+        EpicStatusUpdateEvent event = new EpicStatusUpdateEvent();
+        event.begin();
+        epicAggregate(id).apply(epic);
+        if (event.shouldCommit()) {
+            event.epicId = id;
+            event.subtaskCount = epic.getSubtaskIds().size();
+            event.boardSize = boardSize();
+            event.status = String.valueOf(epic.getStatus());
+            event.commit();
         }
+    }
 
-        LocalDateTime startTime = subtaskList.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-        LocalDateTime endTime = subtaskList.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-        Duration duration = subtaskList.stream()
-                .map(Subtask::getDuration)
-                .reduce(Duration.ZERO, Duration::plus);
-
-        epic.setStartTime(startTime);
-        epic.setEndTime(endTime);
-        epic.setDuration(duration);
-    }
-
-    private boolean isOverlapping(Task task1, Task task2) {
-        if (task1.getStartTime() != null && task2.getStartTime() != null) {
-            if (task1.getStartTime().isBefore(task2.getEndTime()) && task1.getEndTime().isAfter(task2.getStartTime())) {
-                return true;
-            }
+    private Optional<Task> checkTimeIntersection(Task task) {
+        TimeIntersectionCheckEvent event = new TimeIntersectionCheckEvent();
+        event.begin();
+        Optional<Task> intersectingTask = timeIndex.findOverlap(task);
+        if (event.shouldCommit()) {
+            event.taskId = task.getId();
+            event.boardSize = boardSize();
+            event.intersectingTaskId = intersectingTask.map(Task::getId).orElse(-1);
+            event.commit();
         }
-        return false;
+        return intersectingTask;
     }
 
-    private Optional<Task> checkTimeIntersection(Task task) {
-        return getPrioritizedTasks().stream()
-                .filter(existingTask -> task.getStartTime() != null && existingTask.getStartTime() != null)
-                .filter(prioritizedTask -> task.getId() != prioritizedTask.getId())
-                .filter(prioritizedTask -> isOverlapping(task, prioritizedTask))
-                .findFirst();
+    protected int boardSize() {
+        return tasks.size() + epics.size() + subtasks.size();
     }
 
     @Override
@@ -378,7 +411,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     public List<Task> getPrioritizedTasks() {
-        return prioritizedTasks.stream().toList();
+        return prioritizedTasks.values().stream().toList();
     }
 }
 
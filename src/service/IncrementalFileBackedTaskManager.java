@@ -0,0 +1,397 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import metrics.Histogram;
+import metrics.PersistenceSaveEvent;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Хранит каждую запись в слоте фиксированного размера, поэтому при изменении
+ * перезаписываются только слоты изменённых задач. Строка записи заканчивается переводом
+ * строки и дополняется пробелами до конца слота, так что файл остаётся обычным
+ * CSV-снапшотом и читается FileBackedTaskManager.loadFromFile. Длина названия и описания
+ * проверяется до изменения задачи в памяти, поэтому запись, не помещающаяся в слот, отклоняется целиком.
+ * <p>
+ * Последнее поле строки — CRC32C остальной строки (столбец crc32c в заголовке). Слот, в котором сумма
+ * не сходится (например, запись оборвалась на середине), при загрузке пропускается с сообщением, а
+ * остальные записи загружаются. Файлы без этого столбца читаются без проверки.
+ */
+public class IncrementalFileBackedTaskManager extends FileBackedTaskManager {
+
+    public static final int DEFAULT_SLOT_SIZE = 512;
+    private static final String SLOT_PREFIX = ";slot=";
+    private static final String CHECKSUM_FIELD = ",crc32c";
+    // Запятая и восемь шестнадцатеричных цифр.
+    private static final int CHECKSUM_LENGTH = 9;
+    // Все поля строки, кроме названия и описания, ограничены по длине: восемь запятых, id и epicId
+    // (int со знаком), тип и статус (не длиннее SUBTASK и IN_PROGRESS), две даты и продолжительность (long).
+    // К ним добавляется поле контрольной суммы.
+    private static final int MAX_FIXED_FIELDS_LENGTH = 8 + 2 * 11 + "SUBTASK".length() + "IN_PROGRESS".length()
+            + 2 * "dd.MM.yy HH:mm".length() + 20 + CHECKSUM_LENGTH;
+
+    private int slotSize;
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    private final Set<Integer> changedIds = new LinkedHashSet<>();
+    private int slotCount = 1;
+    private boolean slotChecksums = true;
+    private final Histogram slotsSaveDuration = saveDuration(IncrementalFileBackedTaskManager.class, "slots");
+
+    public IncrementalFileBackedTaskManager(File file) {
+        this(file, DurabilityMode.NONE, DEFAULT_SLOT_SIZE);
+    }
+
+    public IncrementalFileBackedTaskManager(File file, DurabilityMode durabilityMode, int slotSize) {
+        super(file, durabilityMode);
+        this.slotSize = slotSize;
+    }
+
+    public static IncrementalFileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, DurabilityMode.NONE);
+    }
+
+    public static IncrementalFileBackedTaskManager loadFromFile(File file, DurabilityMode durabilityMode) {
+        IncrementalFileBackedTaskManager manager =
+                new IncrementalFileBackedTaskManager(file, durabilityMode, DEFAULT_SLOT_SIZE);
+        if (file.exists()) {
+            manager.load();
+        }
+        return manager;
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    @Override
+    protected void save() {
+        // Записываются только изменённые слоты, см. writeChanges().
+    }
+
+    @Override
+    protected void readHeader(String header) {
+        if (header == null || !header.contains(SLOT_PREFIX)) {
+            throw new ManagerSaveException("Файл " + file.getName()
+                    + " не является снапшотом со слотами: в заголовке нет " + SLOT_PREFIX);
+        }
+        slotChecksums = header.startsWith(TASK_FIELD_NAMES + CHECKSUM_FIELD + SLOT_PREFIX);
+        try {
+            slotSize = Integer.parseInt(header.substring(header.indexOf(SLOT_PREFIX) + SLOT_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new ManagerSaveException("Некорректный размер слота в заголовке файла " + file.getName());
+        }
+        if (slotSize < MAX_FIXED_FIELDS_LENGTH + 2) {
+            throw new ManagerSaveException("Некорректный размер слота в заголовке файла " + file.getName()
+                    + ": " + slotSize);
+        }
+    }
+
+    // Подзадачи ссылаются на эпики, а освободившиеся слоты переиспользуются,
+    // поэтому записи восстанавливаются в порядке id, а не в порядке слотов.
+    @Override
+    protected void load() {
+        if (file.length() == 0) {
+            return;
+        }
+
+        List<Task> loaded = new ArrayList<>();
+        try (MappedCsvReader.Mapping mapping = MappedCsvReader.map(file)) {
+            ByteBuffer buffer = mapping.buffer();
+            readHeader(new MappedCsvReader(buffer, 0, buffer.limit()).readLine());
+            slotCount = buffer.limit() / slotSize;
+            for (int slot = 1; slot < slotCount; slot++) {
+                MappedCsvReader reader = new MappedCsvReader(buffer, slot * slotSize, (slot + 1) * slotSize);
+                if (!reader.hasNext()) {
+                    freeSlots.add(slot);
+                    continue;
+                }
+                if (slotChecksums && !checksumMatches(buffer, reader.position(), (slot + 1) * slotSize)) {
+                    System.out.println("Слот " + slot + " файла " + file.getName()
+                            + " повреждён: контрольная сумма не совпадает, запись пропущена");
+                    freeSlots.add(slot);
+                    continue;
+                }
+                Task task = reader.next();
+                slotById.put(task.getId(), slot);
+                loaded.add(task);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+
+        dropOrphanSubtasks(loaded);
+        loaded.sort(Comparator.comparingInt(Task::getId));
+        restoreAll(loaded);
+        for (Task task : loaded) {
+            id = Math.max(id, task.getId() + 1);
+        }
+    }
+
+    private static boolean checksumMatches(ByteBuffer buffer, int lineStart, int slotEnd) {
+        int lineEnd = lineStart;
+        while (lineEnd < slotEnd && buffer.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        int checksumStart = lineEnd - CHECKSUM_LENGTH;
+        if (checksumStart <= lineStart || buffer.get(checksumStart) != ',') {
+            return false;
+        }
+        byte[] expected = new byte[CHECKSUM_LENGTH - 1];
+        buffer.get(checksumStart + 1, expected);
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().position(lineStart).limit(checksumStart));
+        return new String(expected, StandardCharsets.US_ASCII).equals(String.format("%08x", checksum.getValue()));
+    }
+
+    // Если пропущен слот эпика, его подзадачи тоже пропускаются: подзадача без эпика на доске не живёт.
+    private void dropOrphanSubtasks(List<Task> loaded) {
+        Set<Integer> epicIds = new HashSet<>();
+        for (Task task : loaded) {
+            if (task instanceof Epic) {
+                epicIds.add(task.getId());
+            }
+        }
+        loaded.removeIf(task -> {
+            if (task instanceof Subtask subtask && !epicIds.contains(subtask.getEpicId())) {
+                System.out.println("Подзадача " + subtask.getId() + " файла " + file.getName()
+                        + " пропущена: её эпик " + subtask.getEpicId() + " не загружен");
+                freeSlots.add(slotById.remove(subtask.getId()));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // Вызывается до изменения в памяти: иначе задача осталась бы на доске, но не попала в файл.
+    private void checkFits(Task task) {
+        if (task == null) {
+            return;
+        }
+        int length = MAX_FIXED_FIELDS_LENGTH + utf8Length(escapeField(task.getTitle()))
+                + utf8Length(escapeField(task.getDescription()));
+        if (length > slotSize - 2) {
+            throw new ManagerSaveException("Название и описание задачи не помещаются в слот " + slotSize
+                    + " байт");
+        }
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void markChanged(int id) {
+        changedIds.add(id);
+    }
+
+    private void markChanged(int[] ids) {
+        for (int changedId : ids) {
+            changedIds.add(changedId);
+        }
+    }
+
+    private Task findById(int id) {
+        if (tasks.containsKey(id)) {
+            return tasks.get(id);
+        }
+        if (epics.containsKey(id)) {
+            return epics.get(id);
+        }
+        return subtasks.get(id);
+    }
+
+    private void writeChanges() {
+        if (changedIds.isEmpty()) {
+            return;
+        }
+
+        PersistenceSaveEvent event = new PersistenceSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                String fieldNames = slotChecksums ? TASK_FIELD_NAMES + CHECKSUM_FIELD : TASK_FIELD_NAMES;
+                writeSlot(channel, 0, fieldNames + SLOT_PREFIX + slotSize);
+            }
+            for (Integer changedId : changedIds) {
+                Task task = findById(changedId);
+                if (task != null) {
+                    Integer slot = slotById.get(changedId);
+                    if (slot == null) {
+                        slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pollFirst();
+                        slotById.put(changedId, slot);
+                    }
+                    writeSlot(channel, slot, withChecksum(toCsvString(task)));
+                } else {
+                    Integer slot = slotById.get(changedId);
+                    if (slot != null) {
+                        writeSlot(channel, slot, "");
+                        slotById.remove(changedId);
+                        freeSlots.add(slot);
+                    }
+                }
+            }
+            if (durabilityMode != DurabilityMode.NONE) {
+                channel.force(false);
+            }
+            if (event.shouldCommit()) {
+                event.bytesWritten = (long) changedIds.size() * slotSize;
+                commitSaveEvent(event, "slots", file);
+            }
+            // При ошибке записи изменённые id остаются в очереди и записываются при следующем изменении.
+            changedIds.clear();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } finally {
+            slotsSaveDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private String withChecksum(String row) {
+        if (!slotChecksums) {
+            return row;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(row.getBytes(StandardCharsets.UTF_8));
+        return row + "," + String.format("%08x", checksum.getValue());
+    }
+
+    private void writeSlot(FileChannel channel, int slot, String row) throws IOException {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > slotSize - 2) {
+            throw new ManagerSaveException("Запись длиной " + bytes.length + " байт не помещается в слот "
+                    + slotSize + " байт: " + row);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(slotSize);
+        buffer.put(bytes);
+        if (bytes.length > 0) {
+            buffer.put((byte) '\n');
+        }
+        while (buffer.position() < slotSize - 1) {
+            buffer.put((byte) ' ');
+        }
+        buffer.put((byte) '\n');
+        buffer.flip();
+
+        long position = (long) slot * slotSize;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public synchronized void createTask(Task task) {
+        checkFits(task);
+        super.createTask(task);
+        markChanged(task.getId());
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void createEpic(Epic epic) {
+        checkFits(epic);
+        super.createEpic(epic);
+        markChanged(epic.getId());
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void createSubtask(Subtask subtask) {
+        checkFits(subtask);
+        super.createSubtask(subtask);
+        markChanged(subtask.getId());
+        markChanged(subtask.getEpicId());
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        checkFits(task);
+        super.updateTask(task);
+        if (task != null) {
+            markChanged(task.getId());
+        }
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        checkFits(epic);
+        super.updateEpic(epic);
+        markChanged(epic.getId());
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        checkFits(subtask);
+        super.updateSubtask(subtask);
+        markChanged(subtask.getId());
+        markChanged(subtask.getEpicId());
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        super.deleteTaskById(id);
+        markChanged(id);
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            epic.getSubtaskIds().forEach(this::markChanged);
+        }
+        super.deleteEpicById(id);
+        markChanged(id);
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            markChanged(subtask.getEpicId());
+        }
+        super.deleteSubtaskById(id);
+        markChanged(id);
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        markChanged(tasks.keys());
+        super.deleteAllTasks();
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        markChanged(epics.keys());
+        markChanged(subtasks.keys());
+        super.deleteAllEpics();
+        writeChanges();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        markChanged(subtasks.keys());
+        markChanged(epics.keys());
+        super.deleteAllSubtasks();
+        writeChanges();
+    }
+}
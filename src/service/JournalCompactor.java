@@ -0,0 +1,78 @@
+package service;
+
+import exceptions.ManagerSaveException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая компактизация журнала: снапшот пишется раз в snapshotInterval
+ * или как только журнал вырос до journalSizeThreshold байт.
+ */
+public class JournalCompactor implements Closeable {
+
+    private static final long CHECK_PERIOD_MILLIS = 500;
+
+    private final JournaledTaskManager taskManager;
+    private final Duration snapshotInterval;
+    private final long journalSizeThreshold;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long lastCompactionStart = System.nanoTime();
+    private volatile Duration lastCompactionDuration = Duration.ZERO;
+
+    public JournalCompactor(JournaledTaskManager taskManager, Duration snapshotInterval, long journalSizeThreshold) {
+        this.taskManager = taskManager;
+        this.snapshotInterval = snapshotInterval;
+        this.journalSizeThreshold = journalSizeThreshold;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::compactIfNeeded, CHECK_PERIOD_MILLIS, CHECK_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Duration getLastCompactionDuration() {
+        return lastCompactionDuration;
+    }
+
+    public void compact() {
+        long start = System.nanoTime();
+        lastCompactionStart = start;
+        taskManager.checkpoint();
+        lastCompactionDuration = Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private void compactIfNeeded() {
+        long journalSize = taskManager.getJournalSize();
+        if (journalSize == 0) {
+            return;
+        }
+
+        boolean intervalElapsed = System.nanoTime() - lastCompactionStart >= snapshotInterval.toNanos();
+        if (intervalElapsed || journalSize >= journalSizeThreshold) {
+            try {
+                compact();
+            } catch (ManagerSaveException e) {
+                System.out.println("Ошибка компактизации журнала: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CHECK_PERIOD_MILLIS * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
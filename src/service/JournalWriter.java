@@ -0,0 +1,111 @@
+package service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Дописывает записи журнала через FileChannel. В режиме GROUP_COMMIT первый ожидающий поток
+ * выполняет один force() за всех, кто успел записать, пока шёл предыдущий force()
+ * или дополнительное окно groupCommitWindow.
+ */
+public class JournalWriter implements Closeable {
+
+    private final File file;
+    private final DurabilityMode durabilityMode;
+    private final long groupCommitWindowNanos;
+    private FileChannel channel;
+    private long writtenSeq;
+    private long durableSeq;
+    private boolean syncInProgress;
+
+    public JournalWriter(File file, DurabilityMode durabilityMode, Duration groupCommitWindow) {
+        this.file = file;
+        this.durabilityMode = durabilityMode;
+        this.groupCommitWindowNanos = groupCommitWindow.toNanos();
+    }
+
+    public synchronized void append(long seq, byte[] record) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        writtenSeq = seq;
+        if (durabilityMode == DurabilityMode.FSYNC_PER_WRITE) {
+            channel.force(false);
+            durableSeq = seq;
+        }
+    }
+
+    public void awaitDurable(long seq) throws IOException {
+        if (durabilityMode != DurabilityMode.GROUP_COMMIT) {
+            return;
+        }
+
+        FileChannel syncChannel;
+        synchronized (this) {
+            while (syncInProgress && durableSeq < seq) {
+                waitForSync();
+            }
+            if (durableSeq >= seq || channel == null) {
+                return;
+            }
+            syncInProgress = true;
+        }
+
+        long syncedSeq = seq;
+        boolean synced = false;
+        try {
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+            synchronized (this) {
+                syncedSeq = writtenSeq;
+                syncChannel = channel;
+            }
+            syncChannel.force(false);
+            synced = true;
+        } finally {
+            synchronized (this) {
+                if (synced) {
+                    durableSeq = Math.max(durableSeq, syncedSeq);
+                }
+                syncInProgress = false;
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        while (syncInProgress) {
+            waitForSync();
+        }
+        if (channel != null) {
+            if (durabilityMode != DurabilityMode.NONE && durableSeq < writtenSeq) {
+                channel.force(false);
+                durableSeq = writtenSeq;
+            }
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void waitForSync() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание записи журнала прервано", e);
+        }
+    }
+}
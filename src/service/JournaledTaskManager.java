@@ -0,0 +1,426 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import metrics.Histogram;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранит снапшот в формате FileBackedTaskManager, а каждое изменение дописывает
+ * одной строкой в журнал рядом со снапшотом. При загрузке снапшот дополняется журналом.
+ * Записи журнала пронумерованы; номер последней записи, вошедшей в снапшот, хранится
+ * в его заголовке, поэтому при загрузке применяется только хвост журнала. Если хвост начинается
+ * не сразу за снапшотом (например, загружено предыдущее поколение, а журнал к нему уже удалён),
+ * загрузка завершается ошибкой, а не теряет записи молча.
+ */
+public class JournaledTaskManager extends FileBackedTaskManager implements Closeable {
+
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+    private static final String CLEAR = "CLEAR";
+    private static final String SEQ_PREFIX = ";seq=";
+
+    private final File journalFile;
+    private final File rotatedJournalFile;
+    private final Object checkpointLock = new Object();
+    private final JournalWriter journalWriter;
+    private long lastSeq = 0;
+    private long snapshotSeq = 0;
+    private final Histogram journalSaveDuration = saveDuration(JournaledTaskManager.class, "journal");
+
+    public JournaledTaskManager(File file) {
+        this(file, DurabilityMode.NONE);
+    }
+
+    public JournaledTaskManager(File file, DurabilityMode durabilityMode) {
+        this(file, durabilityMode, Duration.ZERO);
+    }
+
+    public JournaledTaskManager(File file, DurabilityMode durabilityMode, Duration groupCommitWindow) {
+        super(file, durabilityMode);
+        this.journalFile = new File(file.getPath() + ".journal");
+        this.rotatedJournalFile = new File(file.getPath() + ".journal.old");
+        this.journalWriter = new JournalWriter(journalFile, durabilityMode, groupCommitWindow);
+    }
+
+    public static JournaledTaskManager loadFromFile(File file) {
+        return loadFromFile(file, DurabilityMode.NONE);
+    }
+
+    public static JournaledTaskManager loadFromFile(File file, DurabilityMode durabilityMode) {
+        return loadFromFile(file, durabilityMode, Duration.ZERO);
+    }
+
+    public static JournaledTaskManager loadFromFile(File file, DurabilityMode durabilityMode,
+                                                    Duration groupCommitWindow) {
+        JournaledTaskManager journaledTaskManager = new JournaledTaskManager(file, durabilityMode, groupCommitWindow);
+        if (snapshotExists(file)) {
+            journaledTaskManager.load();
+        }
+        journaledTaskManager.replayJournal(journaledTaskManager.rotatedJournalFile);
+        journaledTaskManager.replayJournal(journaledTaskManager.journalFile);
+        return journaledTaskManager;
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    public long getJournalSize() {
+        return journalFile.length();
+    }
+
+    // Под блокировкой только собираются ссылки на задачи, запоминается номер последней записи
+    // и переименовывается журнал. Строки снапшота форматируются и пишутся на диск уже без неё,
+    // параллельно с новыми изменениями.
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            List<Task> snapshot;
+            long seq;
+            synchronized (this) {
+                snapshot = captureSnapshot();
+                seq = lastSeq;
+                rotateJournal();
+            }
+
+            List<String> rows = new ArrayList<>(snapshot.size());
+            for (Task task : snapshot) {
+                rows.add(toCsvString(task));
+            }
+            try {
+                writeSnapshot(file, TASK_FIELD_NAMES + SEQ_PREFIX + seq, rows);
+                Files.deleteIfExists(rotatedJournalFile.toPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+        }
+    }
+
+    // Задачи и подзадачи при изменении заменяются в таблицах новыми объектами, поэтому хватает ссылок.
+    // Статус и время эпика пересчитываются на месте, так что эпики копируются (список подзадач — за O(1)).
+    private List<Task> captureSnapshot() {
+        List<Task> snapshot = snapshotTasks();
+        snapshot.replaceAll(task -> task instanceof Epic epic
+                ? new Epic(epic.getTitle(), epic.getDescription(), epic.getId(), epic.getStatus(),
+                epic.shareSubtaskIds(), epic.getStartTime(), epic.getEndTime(), epic.getDuration())
+                : task);
+        return snapshot;
+    }
+
+    private void rotateJournal() {
+        try {
+            close();
+            if (journalFile.exists() && !rotatedJournalFile.exists()) {
+                Files.move(journalFile.toPath(), rotatedJournalFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journalWriter.close();
+    }
+
+    @Override
+    protected void save() {
+        // Снапшот пишется только в checkpoint(), изменения уходят в журнал.
+    }
+
+    @Override
+    protected void readHeader(String header) {
+        if (header != null && header.contains(SEQ_PREFIX)) {
+            snapshotSeq = Long.parseLong(header.substring(header.indexOf(SEQ_PREFIX) + SEQ_PREFIX.length()));
+            lastSeq = snapshotSeq;
+        }
+    }
+
+    private void append(String record) {
+        long start = System.nanoTime();
+        try {
+            long seq = ++lastSeq;
+            journalWriter.append(seq, (seq + "," + record + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } finally {
+            journalSaveDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    // Изменение и его запись в журнал выполняются под блокировкой менеджера,
+    // а ожидание fsync при групповой фиксации — уже после её снятия.
+    private void commit(Runnable change) {
+        long seq;
+        synchronized (this) {
+            change.run();
+            seq = lastSeq;
+        }
+        try {
+            journalWriter.awaitDurable(seq);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    private void appendPut(Task task) {
+        append(PUT + "," + toCsvString(task));
+    }
+
+    private void appendDelete(TaskType type, int id) {
+        append(DELETE + "," + type + "," + id);
+    }
+
+    private void appendClear(TaskType type) {
+        append(CLEAR + "," + type);
+    }
+
+    private void replayJournal(File journalFile) {
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        List<String> records;
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            records = reader.lines().toList();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+
+        for (int i = 0; i < records.size(); i++) {
+            String record = records.get(i);
+            if (record.isBlank()) {
+                continue;
+            }
+            long seq = sequenceOf(record);
+            if (seq > lastSeq + 1) {
+                throw new ManagerSaveException("В журнале " + journalFile.getName() + " нет записей с "
+                        + (lastSeq + 1) + " по " + (seq - 1) + ": снапшот старше журнала");
+            }
+            try {
+                apply(record);
+            } catch (RuntimeException e) {
+                if (i == records.size() - 1) {
+                    System.out.println("Последняя запись журнала повреждена и пропущена: " + record);
+                    break;
+                }
+                throw new ManagerSaveException("Ошибка в журнале " + journalFile.getName()
+                        + ", строка " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Номер записи или -1, если строка оборвана раньше первой запятой.
+    private static long sequenceOf(String record) {
+        int separator = record.indexOf(',');
+        if (separator < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(record.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void apply(String record) {
+        String[] seqAndRecord = record.split(",", 2);
+        long seq = Long.parseLong(seqAndRecord[0]);
+        if (seq <= snapshotSeq) {
+            return;
+        }
+        lastSeq = Math.max(lastSeq, seq);
+
+        String[] part = seqAndRecord[1].split(",", 2);
+        switch (part[0]) {
+            case PUT:
+                applyPut(fromString(part[1]));
+                break;
+            case DELETE:
+                String[] args = part[1].split(",");
+                applyDelete(TaskType.valueOf(args[0]), Integer.parseInt(args[1]));
+                break;
+            case CLEAR:
+                applyClear(TaskType.valueOf(part[1]));
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    private void applyPut(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                if (tasks.containsKey(task.getId())) {
+                    super.updateTask(task);
+                    return;
+                }
+                break;
+            case EPIC:
+                if (epics.containsKey(task.getId())) {
+                    super.updateEpic((Epic) task);
+                    return;
+                }
+                break;
+            case SUBTASK:
+                if (subtasks.containsKey(task.getId())) {
+                    super.updateSubtask((Subtask) task);
+                    return;
+                }
+                break;
+        }
+        restore(task);
+    }
+
+    private void applyDelete(TaskType type, int id) {
+        switch (type) {
+            case TASK:
+                super.deleteTaskById(id);
+                break;
+            case EPIC:
+                super.deleteEpicById(id);
+                break;
+            case SUBTASK:
+                super.deleteSubtaskById(id);
+                break;
+        }
+    }
+
+    private void applyClear(TaskType type) {
+        switch (type) {
+            case TASK:
+                super.deleteAllTasks();
+                break;
+            case EPIC:
+                super.deleteAllEpics();
+                break;
+            case SUBTASK:
+                super.deleteAllSubtasks();
+                break;
+        }
+    }
+
+    @Override
+    public void createTask(Task task) {
+        commit(() -> {
+            super.createTask(task);
+            appendPut(task);
+        });
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        commit(() -> {
+            super.createEpic(epic);
+            appendPut(epic);
+        });
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        commit(() -> {
+            super.createSubtask(subtask);
+            if (subtasks.get(subtask.getId()) == subtask) {
+                appendPut(subtask);
+            }
+        });
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        commit(() -> {
+            super.updateTask(task);
+            if (task != null && tasks.get(task.getId()) == task) {
+                appendPut(task);
+            }
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        commit(() -> {
+            super.updateEpic(epic);
+            Epic updatedEpic = epics.get(epic.getId());
+            if (updatedEpic != null) {
+                appendPut(updatedEpic);
+            }
+        });
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        commit(() -> {
+            super.updateSubtask(subtask);
+            if (subtasks.get(subtask.getId()) == subtask) {
+                appendPut(subtask);
+            }
+        });
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        commit(() -> {
+            boolean exists = tasks.containsKey(id);
+            super.deleteTaskById(id);
+            if (exists) {
+                appendDelete(TaskType.TASK, id);
+            }
+        });
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        commit(() -> {
+            boolean exists = epics.containsKey(id);
+            super.deleteEpicById(id);
+            if (exists) {
+                appendDelete(TaskType.EPIC, id);
+            }
+        });
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        commit(() -> {
+            boolean exists = subtasks.containsKey(id);
+            super.deleteSubtaskById(id);
+            if (exists) {
+                appendDelete(TaskType.SUBTASK, id);
+            }
+        });
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        commit(() -> {
+            super.deleteAllTasks();
+            appendClear(TaskType.TASK);
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        commit(() -> {
+            super.deleteAllEpics();
+            appendClear(TaskType.EPIC);
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        commit(() -> {
+            super.deleteAllSubtasks();
+            appendClear(TaskType.SUBTASK);
+        });
+    }
+}
@@ -1,18 +1,34 @@
 package service;
 
 import model.Task;
+import util.IntObjectHashMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class LinkedListCustom<T> {
+// Список просмотров от старых к новым. При переполнении вытесняется голова — самый давний просмотр.
+public class LinkedListCustom {
+
+    private final IntObjectHashMap<Node<Task>> taskNodeMap = new IntObjectHashMap<>();
+    private final int capacity;
 
     private Node<Task> head;
     private Node<Task> tail;
 
-    public static final Map<Integer, Node<Task>> taskNodeMap = new HashMap<>();
+    public LinkedListCustom(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        return taskNodeMap.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
 
     private Node<Task> linkLast(Task task) {
         Node<Task> newNode = new Node<>(tail, task, null);
@@ -66,17 +82,18 @@ public class LinkedListCustom<T> {
     public void add(Task task) {
         int taskId = task.getId();
 
-        if (taskNodeMap.containsKey(taskId)) {
-            removeNode(taskNodeMap.get(taskId));
+        Node<Task> previous = taskNodeMap.put(taskId, linkLast(task));
+        if (previous != null) {
+            removeNode(previous);
+        } else if (taskNodeMap.size() > capacity) {
+            Node<Task> eldest = head;
+            removeNode(eldest);
+            taskNodeMap.remove(eldest.task.getId());
         }
-        taskNodeMap.put(taskId, linkLast(task));
     }
 
     public void remove(int id) {
-        if (taskNodeMap.containsKey(id)) {
-            removeNode(taskNodeMap.get(id));
-            taskNodeMap.remove(id);
-        }
+        removeNode(taskNodeMap.remove(id));
     }
 }
 
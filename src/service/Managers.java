@@ -1,12 +1,43 @@
 package service;
 
+import java.io.File;
+import java.time.Duration;
+
 public class Managers {
 
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistoryManager() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getHistoryManager(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static JournaledTaskManager getJournaled(File file) {
+        return JournaledTaskManager.loadFromFile(file);
+    }
+
+    public static JournaledTaskManager getJournaled(File file, DurabilityMode durabilityMode) {
+        return JournaledTaskManager.loadFromFile(file, durabilityMode);
+    }
+
+    public static BinaryFileBackedTaskManager getBinaryFileBacked(File file) {
+        return BinaryFileBackedTaskManager.loadFromFile(file);
+    }
+
+    public static IncrementalFileBackedTaskManager getIncrementalFileBacked(File file) {
+        return IncrementalFileBackedTaskManager.loadFromFile(file);
+    }
+
+    public static WriteBehindTaskManager getWriteBehind(File file, Duration flushInterval, int maxPendingChanges) {
+        return WriteBehindTaskManager.loadFromFile(file, DurabilityMode.NONE, flushInterval, maxPendingChanges);
+    }
 }
@@ -0,0 +1,262 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import util.IntArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Читает строки CSV-снапшота прямо из ByteBuffer (обычно отображённого в память файла).
+ * Числа, перечисления и даты разбираются из байтов без промежуточных строк,
+ * String создаются только для названия и описания.
+ */
+public class MappedCsvReader {
+
+    private static final byte SEPARATOR = ',';
+    private static final byte LINE_END = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+    private int fieldStart;
+    private int fieldEnd;
+    private byte[] scratch = new byte[128];
+
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    /**
+     * Файл, отображённый в память только для чтения. close() освобождает отображение сразу,
+     * а не при сборке мусора: пока оно живо, Windows не даёт заменить файл, и следующий save()
+     * упал бы на переименовании. После close() буфер и читатели поверх него использовать нельзя.
+     */
+    public static final class Mapping implements AutoCloseable {
+        private final MappedByteBuffer buffer;
+
+        private Mapping(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            } catch (Throwable e) {
+                // Не удалось освободить сразу — отображение освободит сборщик мусора.
+            }
+        }
+    }
+
+    public MappedCsvReader(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.position = from;
+        this.limit = to;
+    }
+
+    public static Mapping map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Файл " + file.getName() + " слишком велик для отображения в память");
+            }
+            return new Mapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Unsafe.invokeCleaner из модуля jdk.unsupported — единственный способ освободить отображение
+    // без --enable-preview. Если его нет, отображения освобождает сборщик мусора.
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public String readLine() {
+        if (position >= limit) {
+            return null;
+        }
+        int end = indexOf(LINE_END, position);
+        String line = readString(position, trimCarriageReturn(position, end));
+        position = Math.min(end + 1, limit);
+        return line;
+    }
+
+    public boolean hasNext() {
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b != LINE_END && b != CARRIAGE_RETURN && b != ' ' && b != '\t') {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    public Task next() {
+        int lineStart = position;
+        int nextLine = indexOf(LINE_END, lineStart) + 1;
+        int lineEnd = trimCarriageReturn(lineStart, nextLine - 1);
+        try {
+            nextField(lineEnd);
+            int id = (int) readLong();
+            nextField(lineEnd);
+            TaskType type = readType();
+            nextField(lineEnd);
+            String title = FileBackedTaskManager.unescapeField(readString(fieldStart, fieldEnd));
+            nextField(lineEnd);
+            TaskStatus status = readStatus();
+            nextField(lineEnd);
+            String description = FileBackedTaskManager.unescapeField(readString(fieldStart, fieldEnd));
+            nextField(lineEnd);
+            int epicId = fieldStart == fieldEnd ? 0 : (int) readLong();
+            nextField(lineEnd);
+            LocalDateTime startTime = readDateTime();
+            nextField(lineEnd);
+            LocalDateTime endTime = readDateTime();
+            nextField(lineEnd);
+            Duration duration = Duration.ofMinutes(readLong());
+            position = Math.min(nextLine, limit);
+
+            switch (type) {
+                case EPIC:
+                    return new Epic(title, description, id, status, new IntArrayList(), startTime, endTime, duration);
+                case SUBTASK:
+                    return new Subtask(title, description, id, status, epicId, startTime, duration);
+                default:
+                    return new Task(title, description, id, status, startTime, duration);
+            }
+        } catch (RuntimeException e) {
+            throw new ManagerSaveException("Некорректная строка: "
+                    + readString(lineStart, lineEnd) + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private void nextField(int lineEnd) {
+        fieldStart = Math.min(position, lineEnd);
+        fieldEnd = fieldStart;
+        while (fieldEnd < lineEnd && buffer.get(fieldEnd) != SEPARATOR) {
+            fieldEnd++;
+        }
+        position = fieldEnd + 1;
+    }
+
+    private int indexOf(byte value, int from) {
+        int index = from;
+        while (index < limit && buffer.get(index) != value) {
+            index++;
+        }
+        return index;
+    }
+
+    private int trimCarriageReturn(int from, int end) {
+        return end > from && buffer.get(end - 1) == CARRIAGE_RETURN ? end - 1 : end;
+    }
+
+    private long readLong() {
+        int index = fieldStart;
+        boolean negative = index < fieldEnd && buffer.get(index) == '-';
+        if (negative) {
+            index++;
+        }
+        if (index == fieldEnd) {
+            throw new NumberFormatException("ожидалось число в позиции " + fieldStart);
+        }
+        long value = 0;
+        for (; index < fieldEnd; index++) {
+            int digit = buffer.get(index) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("ожидалось число в позиции " + fieldStart);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private TaskType readType() {
+        switch (buffer.get(fieldStart)) {
+            case 'T':
+                return TaskType.TASK;
+            case 'E':
+                return TaskType.EPIC;
+            case 'S':
+                return TaskType.SUBTASK;
+            default:
+                throw new IllegalArgumentException("неизвестный тип задачи");
+        }
+    }
+
+    private TaskStatus readStatus() {
+        switch (buffer.get(fieldStart)) {
+            case 'N':
+                return TaskStatus.NEW;
+            case 'I':
+                return TaskStatus.IN_PROGRESS;
+            case 'D':
+                return TaskStatus.DONE;
+            default:
+                throw new IllegalArgumentException("неизвестный статус задачи");
+        }
+    }
+
+    // Формат dd.MM.yy HH:mm, как у FileBackedTaskManager.DATE_TIME_FORMATTER, или null.
+    private LocalDateTime readDateTime() {
+        int from = fieldStart;
+        if (buffer.get(from) == 'n') {
+            return null;
+        }
+        if (fieldEnd - from != 14 || buffer.get(from + 2) != '.' || buffer.get(from + 5) != '.'
+                || buffer.get(from + 8) != ' ' || buffer.get(from + 11) != ':') {
+            throw new IllegalArgumentException("неверный формат даты");
+        }
+        return LocalDateTime.of(2000 + twoDigits(from + 6), twoDigits(from + 3), twoDigits(from),
+                twoDigits(from + 9), twoDigits(from + 12));
+    }
+
+    private int twoDigits(int from) {
+        int tens = buffer.get(from) - '0';
+        int ones = buffer.get(from + 1) - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            throw new IllegalArgumentException("неверный формат даты");
+        }
+        return tens * 10 + ones;
+    }
+
+    private String readString(int from, int to) {
+        int length = to - from;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,303 @@
+package service;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Замеряет длительность каждой операции менеджера и пишет её в гистограмму
+ * kanban_manager_operation_seconds с меткой operation. Гистограммы получаются из реестра
+ * один раз в конструкторе, так что сам замер не выделяет память.
+ */
+public class MeteredTaskManager implements TaskManager, Closeable {
+
+    private final TaskManager delegate;
+    private final Histogram createTaskDuration;
+    private final Histogram createEpicDuration;
+    private final Histogram createSubtaskDuration;
+    private final Histogram getTasksDuration;
+    private final Histogram getEpicsDuration;
+    private final Histogram getSubtasksDuration;
+    private final Histogram getTaskByIdDuration;
+    private final Histogram getEpicByIdDuration;
+    private final Histogram getSubtaskByIdDuration;
+    private final Histogram getSubtasksByEpicIdDuration;
+    private final Histogram deleteTaskByIdDuration;
+    private final Histogram deleteEpicByIdDuration;
+    private final Histogram deleteSubtaskByIdDuration;
+    private final Histogram deleteAllTasksDuration;
+    private final Histogram deleteAllEpicsDuration;
+    private final Histogram deleteAllSubtasksDuration;
+    private final Histogram updateTaskDuration;
+    private final Histogram updateEpicDuration;
+    private final Histogram updateSubtaskDuration;
+    private final Histogram getHistoryDuration;
+    private final Histogram getPrioritizedTasksDuration;
+
+    public MeteredTaskManager(TaskManager delegate) {
+        this(delegate, MetricsRegistry.DEFAULT);
+    }
+
+    public MeteredTaskManager(TaskManager delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.createTaskDuration = operation(registry, "createTask");
+        this.createEpicDuration = operation(registry, "createEpic");
+        this.createSubtaskDuration = operation(registry, "createSubtask");
+        this.getTasksDuration = operation(registry, "getTasks");
+        this.getEpicsDuration = operation(registry, "getEpics");
+        this.getSubtasksDuration = operation(registry, "getSubtasks");
+        this.getTaskByIdDuration = operation(registry, "getTaskById");
+        this.getEpicByIdDuration = operation(registry, "getEpicById");
+        this.getSubtaskByIdDuration = operation(registry, "getSubtaskById");
+        this.getSubtasksByEpicIdDuration = operation(registry, "getSubtasksByEpicId");
+        this.deleteTaskByIdDuration = operation(registry, "deleteTaskById");
+        this.deleteEpicByIdDuration = operation(registry, "deleteEpicById");
+        this.deleteSubtaskByIdDuration = operation(registry, "deleteSubtaskById");
+        this.deleteAllTasksDuration = operation(registry, "deleteAllTasks");
+        this.deleteAllEpicsDuration = operation(registry, "deleteAllEpics");
+        this.deleteAllSubtasksDuration = operation(registry, "deleteAllSubtasks");
+        this.updateTaskDuration = operation(registry, "updateTask");
+        this.updateEpicDuration = operation(registry, "updateEpic");
+        this.updateSubtaskDuration = operation(registry, "updateSubtask");
+        this.getHistoryDuration = operation(registry, "getHistory");
+        this.getPrioritizedTasksDuration = operation(registry, "getPrioritizedTasks");
+    }
+
+    private static Histogram operation(MetricsRegistry registry, String name) {
+        return registry.histogram("kanban_manager_operation_seconds",
+                "Длительность операций TaskManager", "operation", name);
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void createTask(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.createTask(task);
+        } finally {
+            createTaskDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        long start = System.nanoTime();
+        try {
+            delegate.createEpic(epic);
+        } finally {
+            createEpicDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        long start = System.nanoTime();
+        try {
+            delegate.createSubtask(subtask);
+        } finally {
+            createSubtaskDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasks();
+        } finally {
+            getTasksDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpics();
+        } finally {
+            getEpicsDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtasks();
+        } finally {
+            getSubtasksDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTaskById(id);
+        } finally {
+            getTaskByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpicById(id);
+        } finally {
+            getEpicByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtaskById(id);
+        } finally {
+            getSubtaskByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtasksByEpicId(id);
+        } finally {
+            getSubtasksByEpicIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteTaskById(id);
+        } finally {
+            deleteTaskByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteEpicById(id);
+        } finally {
+            deleteEpicByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteSubtaskById(id);
+        } finally {
+            deleteSubtaskByIdDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllTasks();
+        } finally {
+            deleteAllTasksDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllEpics();
+        } finally {
+            deleteAllEpicsDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllSubtasks();
+        } finally {
+            deleteAllSubtasksDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateTask(task);
+        } finally {
+            updateTaskDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateEpic(epic);
+        } finally {
+            updateEpicDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSubtask(subtask);
+        } finally {
+            updateSubtaskDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } finally {
+            getHistoryDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            getPrioritizedTasksDuration.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    // Не замеряется: вызывается на каждый HTTP-запрос и только читает поле.
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
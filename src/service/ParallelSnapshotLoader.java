@@ -0,0 +1,83 @@
+package service;
+
+import model.Task;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Делит отображённый снапшот на части, выровненные по границам строк, и разбирает их
+ * в ForkJoinPool. Результаты склеиваются в порядке частей, поэтому порядок задач
+ * совпадает с последовательным чтением файла.
+ */
+public class ParallelSnapshotLoader {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    public static List<Task> parse(ByteBuffer buffer, int from, int to) {
+        int chunkCount = Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism(),
+                (to - from) / MIN_CHUNK_SIZE));
+        return parse(buffer, from, to, chunkCount);
+    }
+
+    public static List<Task> parse(ByteBuffer buffer, int from, int to, int chunkCount) {
+        List<int[]> chunks = split(buffer, from, to, chunkCount);
+        if (chunks.size() == 1) {
+            return parseChunk(buffer, from, to);
+        }
+
+        List<ForkJoinTask<List<Task>>> parsedChunks = new ArrayList<>();
+        for (int[] chunk : chunks) {
+            ByteBuffer chunkBuffer = buffer.duplicate();
+            parsedChunks.add(ForkJoinPool.commonPool().submit(() -> parseChunk(chunkBuffer, chunk[0], chunk[1])));
+        }
+
+        // После ошибки в одной части остальные всё равно дожидаются: вызывающий код освобождает
+        // отображение сразу после parse, и незавершённая часть читала бы уже освобождённую память.
+        List<Task> tasks = new ArrayList<>();
+        RuntimeException failure = null;
+        for (ForkJoinTask<List<Task>> parsedChunk : parsedChunks) {
+            try {
+                tasks.addAll(parsedChunk.join());
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return tasks;
+    }
+
+    private static List<int[]> split(ByteBuffer buffer, int from, int to, int chunkCount) {
+        List<int[]> chunks = new ArrayList<>();
+        int chunkSize = Math.max(1, (to - from) / chunkCount);
+        int start = from;
+        while (start < to) {
+            int end = Math.min(to, start + chunkSize);
+            while (end < to && buffer.get(end - 1) != '\n') {
+                end++;
+            }
+            chunks.add(new int[]{start, end});
+            start = end;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new int[]{from, to});
+        }
+        return chunks;
+    }
+
+    private static List<Task> parseChunk(ByteBuffer buffer, int from, int to) {
+        List<Task> tasks = new ArrayList<>();
+        MappedCsvReader reader = new MappedCsvReader(buffer, from, to);
+        while (reader.hasNext()) {
+            tasks.add(reader.next());
+        }
+        return tasks;
+    }
+}
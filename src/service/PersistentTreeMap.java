@@ -0,0 +1,197 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемое AVL-дерево. put и remove копируют только путь от корня до изменённого узла,
+ * остальные узлы новая версия делит со старой, поэтому старые версии можно читать без блокировок.
+ */
+public final class PersistentTreeMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+        return new PersistentTreeMap<>(Comparator.naturalOrder(), null);
+    }
+
+    public static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(key, node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public PersistentTreeMap<K, V> put(K key, V value) {
+        return new PersistentTreeMap<>(comparator, put(root, key, value));
+    }
+
+    public PersistentTreeMap<K, V> remove(K key) {
+        Node<K, V> newRoot = remove(root, key);
+        return newRoot == root ? this : new PersistentTreeMap<>(comparator, newRoot);
+    }
+
+    public PersistentTreeMap<K, V> clear() {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        addValues(root, values);
+        return values;
+    }
+
+    private static <K, V> void addValues(Node<K, V> node, List<V> values) {
+        while (node != null) {
+            addValues(node.left, values);
+            values.add(node.value);
+            node = node.right;
+        }
+    }
+
+    // Для тестов: проверяет порядок ключей, баланс AVL, высоты и размеры во всех узлах.
+    void checkInvariants() {
+        checkInvariants(root, null, null);
+    }
+
+    private void checkInvariants(Node<K, V> node, Node<K, V> lower, Node<K, V> upper) {
+        if (node == null) {
+            return;
+        }
+        if ((lower != null && comparator.compare(node.key, lower.key) <= 0)
+                || (upper != null && comparator.compare(node.key, upper.key) >= 0)) {
+            throw new IllegalStateException("Нарушен порядок ключей в узле " + node.key);
+        }
+        checkInvariants(node.left, lower, node);
+        checkInvariants(node.right, node, upper);
+        if (Math.abs(height(node.left) - height(node.right)) > 1
+                || node.height != Math.max(height(node.left), height(node.right)) + 1) {
+            throw new IllegalStateException("Нарушен баланс или высота в узле " + node.key);
+        }
+        if (node.size != size(node.left) + size(node.right) + 1) {
+            throw new IllegalStateException("Неверный размер поддерева в узле " + node.key);
+        }
+    }
+
+    private Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, put(node.left, key, value), node.right);
+        }
+        if (cmp > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value));
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeMin(node.right));
+    }
+
+    private Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.key, left.value, left.left, left.right);
+            }
+            return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+            return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+    }
+
+    private Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -49,4 +49,7 @@ public interface TaskManager {
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // Номер версии доски: меняется после каждого изменения задач, эпиков или подзадач.
+    long getVersion();
 }
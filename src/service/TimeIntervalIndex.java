@@ -0,0 +1,228 @@
+package service;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * AVL-дерево интервалов по (startTime, id) с максимальным временем окончания в каждом поддереве.
+ * Границы копируются при вставке, поэтому задачу, изменённую "на месте", достаточно добавить повторно.
+ */
+public class TimeIntervalIndex {
+
+    private static class Entry {
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Task task;
+        LocalDateTime maxEnd;
+        int height = 1;
+        Entry left;
+        Entry right;
+
+        Entry(Task task) {
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.task = task;
+            this.maxEnd = end;
+        }
+    }
+
+    private final Map<Integer, Entry> entriesById = new HashMap<>();
+    private Entry root;
+
+    public void add(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() == null) {
+            return;
+        }
+        Entry entry = new Entry(task);
+        root = insert(root, entry);
+        entriesById.put(entry.id, entry);
+    }
+
+    public void remove(int id) {
+        Entry entry = entriesById.remove(id);
+        if (entry != null) {
+            root = delete(root, entry);
+        }
+    }
+
+    public void clear() {
+        entriesById.clear();
+        root = null;
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    public Optional<Task> findOverlap(Task task) {
+        if (task.getStartTime() == null) {
+            return Optional.empty();
+        }
+        Entry found = search(root, task.getStartTime(), task.getEndTime(), task.getId());
+        return found == null ? Optional.empty() : Optional.of(found.task);
+    }
+
+    // Пересечение: start1 < end2 && end1 > start2. Отсекаются поддеревья с maxEnd <= start
+    // и правые ветки узлов, которые начинаются не раньше end.
+    private Entry search(Entry node, LocalDateTime start, LocalDateTime end, int excludedId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return null;
+        }
+        Entry found = search(node.left, start, end, excludedId);
+        if (found != null) {
+            return found;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (node.id != excludedId && node.end.isAfter(start)) {
+            return node;
+        }
+        return search(node.right, start, end, excludedId);
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int result = a.start.compareTo(b.start);
+        return result != 0 ? result : Integer.compare(a.id, b.id);
+    }
+
+    private Entry insert(Entry node, Entry entry) {
+        if (node == null) {
+            return entry;
+        }
+        if (compare(entry, node) < 0) {
+            node.left = insert(node.left, entry);
+        } else {
+            node.right = insert(node.right, entry);
+        }
+        return balance(node);
+    }
+
+    private Entry delete(Entry node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(entry, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, entry);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, entry);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Entry successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Entry deleteMin(Entry node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Entry balance(Entry node) {
+        update(node);
+        int diff = height(node.left) - height(node.right);
+        if (diff > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Entry rotateLeft(Entry node) {
+        Entry pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Entry rotateRight(Entry node) {
+        Entry pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    // Для тестов: проверяет порядок ключей, баланс AVL, высоты и maxEnd во всех узлах.
+    void checkInvariants() {
+        if (checkInvariants(root, null, null) != entriesById.size()) {
+            throw new IllegalStateException("Число узлов не совпадает с числом записей");
+        }
+    }
+
+    private int checkInvariants(Entry node, Entry lower, Entry upper) {
+        if (node == null) {
+            return 0;
+        }
+        if ((lower != null && compare(node, lower) <= 0) || (upper != null && compare(node, upper) >= 0)) {
+            throw new IllegalStateException("Нарушен порядок ключей в узле " + node.id);
+        }
+        if (entriesById.get(node.id) != node) {
+            throw new IllegalStateException("Узел " + node.id + " не зарегистрирован по id");
+        }
+        int count = checkInvariants(node.left, lower, node) + checkInvariants(node.right, node, upper) + 1;
+        if (Math.abs(height(node.left) - height(node.right)) > 1
+                || node.height != Math.max(height(node.left), height(node.right)) + 1) {
+            throw new IllegalStateException("Нарушен баланс или высота в узле " + node.id);
+        }
+        LocalDateTime maxEnd = node.end;
+        for (Entry child : new Entry[]{node.left, node.right}) {
+            if (child != null && child.maxEnd.isAfter(maxEnd)) {
+                maxEnd = child.maxEnd;
+            }
+        }
+        if (!node.maxEnd.equals(maxEnd)) {
+            throw new IllegalStateException("Неверный maxEnd в узле " + node.id);
+        }
+        return count;
+    }
+
+    private static int height(Entry node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Entry node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+}
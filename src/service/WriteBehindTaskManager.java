@@ -0,0 +1,154 @@
+package service;
+
+import exceptions.ManagerSaveException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Изменения только помечают хранилище "грязным", а снапшот пишет фоновый поток:
+ * не чаще раза в flushInterval или сразу после maxPendingChanges изменений.
+ * flush() и close() гарантируют, что накопленные изменения записаны; изменения после close()
+ * отклоняются с ManagerSaveException до того, как доска в памяти изменится. Экземпляр создаётся
+ * через loadFromFile, который и запускает фоновый поток.
+ */
+public class WriteBehindTaskManager extends FileBackedTaskManager implements Closeable {
+
+    private final Duration flushInterval;
+    private final int maxPendingChanges;
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int pendingChanges = 0;
+    private boolean flushing = false;
+    private boolean closed = false;
+
+    private WriteBehindTaskManager(File file, DurabilityMode durabilityMode, Duration flushInterval,
+                                   int maxPendingChanges) {
+        super(file, durabilityMode);
+        this.flushInterval = flushInterval;
+        this.maxPendingChanges = maxPendingChanges;
+    }
+
+    public static WriteBehindTaskManager loadFromFile(File file, DurabilityMode durabilityMode,
+                                                      Duration flushInterval, int maxPendingChanges) {
+        // Планировщик работает в миллисекундах, и период 0 он не принимает.
+        if (flushInterval == null || flushInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Интервал отложенной записи должен быть не меньше 1 мс, получено "
+                    + flushInterval);
+        }
+        WriteBehindTaskManager writeBehindTaskManager = new WriteBehindTaskManager(file, durabilityMode,
+                flushInterval, maxPendingChanges);
+        if (snapshotExists(file)) {
+            writeBehindTaskManager.load();
+        }
+        writeBehindTaskManager.start();
+        return writeBehindTaskManager;
+    }
+
+    private void start() {
+        executor.scheduleAtFixedRate(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public synchronized int getPendingChanges() {
+        return pendingChanges;
+    }
+
+    // Ждёт, пока все накопленные изменения будут записаны в файл; false, если не дождались за timeout.
+    public synchronized boolean awaitFlush(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pendingChanges > 0 || flushing) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    @Override
+    protected void checkWritable() {
+        if (closed) {
+            throw new ManagerSaveException("Менеджер закрыт, изменение не будет сохранено в " + file.getName());
+        }
+    }
+
+    @Override
+    protected void save() {
+        pendingChanges++;
+        if (pendingChanges >= maxPendingChanges && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(this::flushQuietly);
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            flushScheduled.set(false);
+            List<String> rows;
+            int flushedChanges;
+            synchronized (this) {
+                if (pendingChanges == 0) {
+                    return;
+                }
+                rows = snapshotRows();
+                flushedChanges = pendingChanges;
+                pendingChanges = 0;
+                flushing = true;
+            }
+
+            boolean written = false;
+            try {
+                writeSnapshot(file, TASK_FIELD_NAMES, rows);
+                written = true;
+            } finally {
+                synchronized (this) {
+                    if (!written) {
+                        pendingChanges += flushedChanges;
+                    }
+                    flushing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            System.out.println("Ошибка отложенного сохранения: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        // Флаг выставляется под тем же монитором, что и save(), поэтому ни одно изменение
+        // не попадёт в уже остановленный executor.
+        synchronized (this) {
+            closed = true;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(flushInterval.toMillis() + 1_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -2,6 +2,7 @@ package util;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -20,11 +21,10 @@ public class DurationAdapter extends TypeAdapter<Duration> {
 
     @Override
     public Duration read(JsonReader jsonReader) throws IOException {
-        Long value = jsonReader.nextLong();
-        if (value != null) {
-            return Duration.ofMinutes(value);
-        } else {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
             return null;
         }
+        return Duration.ofMinutes(jsonReader.nextLong());
     }
 }
@@ -0,0 +1,142 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Список int без упаковки. sharedCopy() отдаёт копию за O(1): оба списка читают один массив,
+ * а копируется он только тогда, когда изменение могло бы затронуть общую часть. Владелец массива
+ * дописывает элементы за пределами всех выданных копий на месте, а удаление и очистку начинает
+ * с собственного массива; копия копирует массив при любом изменении.
+ */
+public class IntArrayList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements;
+    private int size;
+    // Первые size элементов массива читают копии, выданные sharedCopy().
+    private boolean shared;
+    // Массив принадлежит другому списку.
+    private boolean borrowed;
+
+    public IntArrayList() {
+        this.elements = EMPTY;
+    }
+
+    public IntArrayList(IntArrayList other) {
+        this.elements = Arrays.copyOf(other.elements, other.size);
+        this.size = other.size;
+    }
+
+    private IntArrayList(int[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+        this.borrowed = true;
+    }
+
+    public IntArrayList sharedCopy() {
+        shared = true;
+        return new IntArrayList(elements, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size);
+        }
+        return elements[index];
+    }
+
+    public void add(int value) {
+        if (size == elements.length || borrowed) {
+            elements = Arrays.copyOf(elements, Math.max(4, size + (size >> 1)));
+            shared = false;
+            borrowed = false;
+        }
+        elements[size++] = value;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        if (shared || borrowed) {
+            elements = Arrays.copyOf(elements, size);
+            shared = false;
+            borrowed = false;
+        }
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (shared || borrowed) {
+            elements = EMPTY;
+            shared = false;
+            borrowed = false;
+        }
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntArrayList other = (IntArrayList) o;
+        return Arrays.equals(elements, 0, size, other.elements, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + elements[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,39 @@
+package util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+public class IntArrayListAdapter extends TypeAdapter<IntArrayList> {
+
+    @Override
+    public void write(JsonWriter jsonWriter, IntArrayList list) throws IOException {
+        if (list == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginArray();
+        for (int i = 0; i < list.size(); i++) {
+            jsonWriter.value(list.get(i));
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public IntArrayList read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        IntArrayList list = new IntArrayList();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            list.add(jsonReader.nextInt());
+        }
+        jsonReader.endArray();
+        return list;
+    }
+}
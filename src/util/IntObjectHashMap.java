@@ -0,0 +1,218 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Хеш-таблица с открытой адресацией и линейным пробированием по схеме Robin Hood для ключей int.
+ * Ключи и значения лежат в двух параллельных массивах, без Integer и узлов на каждую запись.
+ * Свободная ячейка — значение null, поэтому null в качестве значения не допускается.
+ * Хеш такой же, как у HashMap для Integer, поэтому последовательные id обходятся по возрастанию,
+ * пока помещаются в таблицу. Такие id занимают один длинный кластер, поэтому поиск отсутствующего ключа
+ * и удаление останавливаются по расстоянию записей от их домашней ячейки, а не на первой пустой ячейке.
+ */
+public class IntObjectHashMap<V> {
+
+    public interface Entry<V> {
+        void accept(int key, V value);
+    }
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    private int distance(int index) {
+        return (index - slot(keys[index])) & mask;
+    }
+
+    // Записи в кластере упорядочены по расстоянию от домашней ячейки: если у записи оно меньше,
+    // чем уже пройдено, искомого ключа дальше быть не может.
+    private int find(int key) {
+        int index = slot(key);
+        int probed = 0;
+        while (values[index] != null && distance(index) >= probed) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+            probed++;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = find(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "Значение не может быть null");
+        int index = find(key);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        insert(key, value);
+        if (++size > (mask + 1) >> 1) {
+            resize();
+        }
+        return null;
+    }
+
+    // Новая запись вытесняет ту, что ближе к своей домашней ячейке, и дальше вставляется вытесненная.
+    private void insert(int key, Object value) {
+        int index = slot(key);
+        int probed = 0;
+        while (values[index] != null) {
+            int existing = distance(index);
+            if (existing < probed) {
+                int displacedKey = keys[index];
+                Object displacedValue = values[index];
+                keys[index] = key;
+                values[index] = value;
+                key = displacedKey;
+                value = displacedValue;
+                probed = existing;
+            }
+            index = (index + 1) & mask;
+            probed++;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    // Удаление со сдвигом назад: следующие записи кластера переносятся на одну ячейку ближе к дому,
+    // пока не встретится пустая ячейка или запись, стоящая в своей домашней ячейке.
+    // "Надгробия" не нужны, и поиск не замедляется после удалений.
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V removed = (V) values[index];
+        size--;
+
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null && distance(next) > 0) {
+            keys[gap] = keys[next];
+            values[gap] = values[next];
+            gap = next;
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        return removed;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Entry<V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    // Для тестов: проверяет, что каждая запись достижима поиском и размер совпадает с числом занятых ячеек.
+    // Запись, сдвинутая от домашней ячейки на d, должна стоять сразу за записью со сдвигом не меньше d - 1.
+    void checkInvariants() {
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            count++;
+            int d = distance(i);
+            int previous = (i - 1) & mask;
+            if (d > 0 && (values[previous] == null || distance(previous) < d - 1)) {
+                throw new IllegalStateException("Нарушен порядок Robin Hood в ячейке " + i);
+            }
+            if (find(keys[i]) != i) {
+                throw new IllegalStateException("Ключ " + keys[i] + " не находится поиском");
+            }
+        }
+        if (count != size) {
+            throw new IllegalStateException("Размер " + size + " не совпадает с числом записей " + count);
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package util;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -22,11 +23,10 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
 
     @Override
     public LocalDateTime read(JsonReader jsonReader) throws IOException {
-        String value = jsonReader.nextString();
-        if (value != null) {
-            return LocalDateTime.parse(value);
-        } else {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
             return null;
         }
+        return LocalDateTime.parse(jsonReader.nextString());
     }
 }
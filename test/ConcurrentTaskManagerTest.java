@@ -0,0 +1,273 @@
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.ConcurrentTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest {
+
+    private static final int THREADS = 8;
+
+    private ConcurrentTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void shouldGiveUniqueIdsUnderConcurrentCreates() throws InterruptedException {
+        runInThreads(thread -> {
+            for (int i = 0; i < 500; i++) {
+                taskManager.createTask(new Task("Задача", "Описание"));
+                taskManager.createEpic(new Epic("Эпик", "Описание"));
+            }
+        });
+
+        assertEquals(THREADS * 500, taskManager.getTasks().size());
+        assertEquals(THREADS * 500, taskManager.getEpics().size());
+        HashSet<Integer> ids = new HashSet<>();
+        taskManager.getTasks().forEach(task -> ids.add(task.getId()));
+        taskManager.getEpics().forEach(epic -> ids.add(epic.getId()));
+        assertEquals(THREADS * 1000, ids.size(), "id не должны повторяться");
+    }
+
+    @Test
+    void shouldKeepEpicStatusConsistentUnderConcurrentUpdates() throws InterruptedException {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            taskManager.createEpic(epic);
+            epics.add(epic);
+        }
+
+        runInThreads(thread -> {
+            for (int i = 0; i < 200; i++) {
+                Epic epic = epics.get((thread + i) % THREADS);
+                Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), TaskStatus.NEW);
+                taskManager.createSubtask(subtask);
+                taskManager.updateSubtask(new Subtask("Подзадача", "Описание", subtask.getId(), TaskStatus.DONE,
+                        epic.getId(), null, Duration.ZERO));
+            }
+        });
+
+        assertEquals(THREADS * 200, taskManager.getSubtasks().size());
+        for (Epic epic : epics) {
+            assertEquals(200, taskManager.getSubtasksByEpicId(epic.getId()).size());
+            assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+        }
+    }
+
+    @Test
+    void shouldNotLetConcurrentTasksIntersect() throws InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2024, 10, 20, 10, 0);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInThreads(thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    taskManager.createTask(new Task("Задача", "Описание", startTime.plusMinutes(i * 30L),
+                            Duration.ofMinutes(30)));
+                } catch (ManagerSaveException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(50, taskManager.getPrioritizedTasks().size(), "Каждый слот должен занять ровно одна задача");
+        assertEquals(THREADS * 50 - 50, rejected.get());
+    }
+
+    @Test
+    void shouldDeleteEpicWithSubtasks() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(),
+                LocalDateTime.of(2024, 10, 20, 10, 0), Duration.ofMinutes(30)));
+
+        taskManager.deleteEpicById(epic.getId());
+
+        assertTrue(taskManager.getSubtasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReturnImmutableSnapshots() {
+        Task task = new Task("Задача", "Описание");
+        taskManager.createTask(task);
+        long version = taskManager.getVersion();
+        List<Task> before = taskManager.getTasks();
+
+        task.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(task);
+        taskManager.createTask(new Task("Вторая задача", "Описание"));
+
+        assertEquals(1, before.size(), "Снимок не должен меняться после записи");
+        assertEquals(TaskStatus.NEW, before.get(0).getStatus());
+        assertEquals(2, taskManager.getTasks().size());
+        assertEquals(version + 2, taskManager.getVersion());
+    }
+
+    @Test
+    void shouldReturnSnapshotObjectsById() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        Epic before = taskManager.getEpicById(epic.getId());
+
+        taskManager.createSubtask(new Subtask("Подзадача", "Описание", 0, TaskStatus.DONE, epic.getId(),
+                null, Duration.ZERO));
+
+        assertNotSame(epic, before, "Наружу не должен отдаваться живой объект менеджера");
+        assertTrue(before.getSubtaskIds().isEmpty(), "Полученный эпик не должен меняться после записи");
+        assertEquals(TaskStatus.NEW, before.getStatus());
+        assertEquals(1, taskManager.getEpicById(epic.getId()).getSubtaskIds().size());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldKeepPublishedSubtaskIdsWhenEpicChanges() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        Subtask first = new Subtask("Подзадача 1", "Описание", 0, TaskStatus.NEW, epic.getId(), null, Duration.ZERO);
+        taskManager.createSubtask(first);
+        taskManager.createSubtask(new Subtask("Подзадача 2", "Описание", 0, TaskStatus.NEW, epic.getId(),
+                null, Duration.ZERO));
+        Epic withTwo = taskManager.getEpicById(epic.getId());
+
+        taskManager.createSubtask(new Subtask("Подзадача 3", "Описание", 0, TaskStatus.NEW, epic.getId(),
+                null, Duration.ZERO));
+        Epic withThree = taskManager.getEpicById(epic.getId());
+        taskManager.deleteSubtaskById(first.getId());
+        taskManager.createSubtask(new Subtask("Подзадача 4", "Описание", 0, TaskStatus.NEW, epic.getId(),
+                null, Duration.ZERO));
+        Epic afterDelete = taskManager.getEpicById(epic.getId());
+        taskManager.deleteAllSubtasks();
+
+        assertEquals(2, withTwo.getSubtaskIds().size());
+        assertEquals(3, withThree.getSubtaskIds().size());
+        assertEquals(first.getId(), withThree.getSubtaskIds().get(0));
+        assertEquals(3, afterDelete.getSubtaskIds().size());
+        assertFalse(afterDelete.getSubtaskIds().contains(first.getId()));
+        assertTrue(taskManager.getEpicById(epic.getId()).getSubtaskIds().isEmpty());
+    }
+
+    @Test
+    void shouldReadConsistentSnapshotsWhileWriting() throws InterruptedException {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        LocalDateTime startTime = LocalDateTime.of(2024, 10, 20, 10, 0);
+
+        runInThreads(thread -> {
+            for (int i = 0; i < 300; i++) {
+                if (thread % 2 == 0) {
+                    Subtask subtask = new Subtask("Подзадача", "Описание", 0, TaskStatus.NEW, epic.getId(),
+                            startTime.plusHours(thread * 1000L + i), Duration.ofMinutes(30));
+                    taskManager.createSubtask(subtask);
+                    if (i % 3 == 0) {
+                        taskManager.deleteSubtaskById(subtask.getId());
+                    }
+                } else {
+                    List<Task> prioritized = taskManager.getPrioritizedTasks();
+                    for (int j = 1; j < prioritized.size(); j++) {
+                        assertTrue(prioritized.get(j - 1).getStartTime().isBefore(prioritized.get(j).getStartTime()));
+                    }
+                }
+            }
+        });
+
+        assertEquals(taskManager.getSubtasks().size(), taskManager.getSubtasksByEpicId(epic.getId()).size());
+        assertEquals(taskManager.getSubtasks().size(), taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldKeepTimeIndexConsistentWhenTasksGainAndLoseTime() throws InterruptedException {
+        LocalDateTime slot = LocalDateTime.of(2024, 10, 20, 10, 0);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            taskManager.createTask(task);
+            tasks.add(task);
+        }
+        AtomicInteger holders = new AtomicInteger();
+
+        runInThreads(thread -> {
+            int id = tasks.get(thread).getId();
+            for (int i = 0; i < 300; i++) {
+                try {
+                    taskManager.updateTask(new Task("Задача", "Описание", id, TaskStatus.NEW, slot,
+                            Duration.ofMinutes(30)));
+                    assertEquals(1, holders.incrementAndGet(), "Окно времени должно быть занято одной задачей");
+                    holders.decrementAndGet();
+                } catch (ManagerSaveException e) {
+                    // Окно занято другой задачей.
+                }
+                taskManager.updateTask(new Task("Задача", "Описание", id, TaskStatus.NEW, null, Duration.ZERO));
+            }
+        });
+
+        assertTrue(taskManager.getPrioritizedTasks().stream().allMatch(task -> task.getStartTime() == null),
+                "У задач не должно остаться окон времени");
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("Новая задача", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(30), slot)), "Окно должно освободиться в индексе интервалов");
+    }
+
+    @Test
+    void shouldRecordHistoryFromConcurrentReads() throws InterruptedException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            taskManager.createTask(task);
+            tasks.add(task);
+        }
+
+        runInThreads(thread -> {
+            for (int i = 0; i < 1000; i++) {
+                taskManager.getTaskById(tasks.get((thread * 31 + i) % tasks.size()).getId());
+            }
+        });
+        taskManager.deleteTaskById(tasks.get(0).getId());
+
+        List<Task> history = taskManager.getHistory();
+        assertEquals(tasks.size() - 1, history.size(), "Каждая просмотренная задача должна быть в истории один раз");
+        assertEquals(tasks.size() - 1, new HashSet<>(history).size());
+        assertFalse(history.contains(tasks.get(0)), "Удалённая задача не должна оставаться в истории");
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+
+    private void runInThreads(ThreadBody body) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                try {
+                    body.run(thread);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), "Ошибки в потоках: " + errors);
+    }
+}
@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 import service.InMemoryTaskManager;
 import service.TaskManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class EpicStatusTest {
@@ -68,4 +71,50 @@ public class EpicStatusTest {
 
         assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
     }
+
+    @Test
+    void subtasksNewAndDoneAfterDelete() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId(),
+                TaskStatus.NEW));
+        manager.createSubtask(new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId(),
+                TaskStatus.DONE));
+        Subtask inProgress = new Subtask("Подзадача 3", "Описание подзадачи 3", epic.getId(),
+                TaskStatus.IN_PROGRESS);
+        manager.createSubtask(inProgress);
+        manager.deleteSubtaskById(inProgress.getId());
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+    }
+
+    @Test
+    void epicTimeFollowsSubtaskUpdatesAndDeletes() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        manager.createEpic(epic);
+        Subtask first = new Subtask("Подзадача 1", "Описание подзадачи 1", 0, TaskStatus.NEW, epic.getId(),
+                LocalDateTime.of(2024, 10, 20, 10, 0), Duration.ofMinutes(30));
+        Subtask second = new Subtask("Подзадача 2", "Описание подзадачи 2", 0, TaskStatus.NEW, epic.getId(),
+                LocalDateTime.of(2024, 10, 20, 12, 0), Duration.ofMinutes(60));
+        manager.createSubtask(first);
+        manager.createSubtask(second);
+
+        assertEquals(LocalDateTime.of(2024, 10, 20, 10, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 13, 0), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        second.setStatus(TaskStatus.DONE);
+        second.setStartTime(LocalDateTime.of(2024, 10, 20, 11, 0));
+        manager.updateSubtask(second);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 12, 0), epic.getEndTime());
+
+        manager.deleteSubtaskById(first.getId());
+
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 11, 0), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+    }
 }
@@ -0,0 +1,134 @@
+package FileBackedTaskManagerTest;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import exceptions.ManagerSaveException;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.BinaryFileBackedTaskManager;
+import service.BinaryTaskFormat;
+import service.FileBackedTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFileBackedTaskManagerTest {
+    private File file;
+    private BinaryFileBackedTaskManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("test", ".bin");
+        manager = new BinaryFileBackedTaskManager(file);
+        manager.createTask(new Task("Задача", "Описание задачи", LocalDateTime.of(2024, 10, 20, 10, 0),
+                Duration.ofMinutes(100)));
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), TaskStatus.DONE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    void shouldSaveAndLoadAllTypes() {
+        BinaryFileBackedTaskManager loadedManager = BinaryFileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(manager.getTasks(), loadedManager.getTasks());
+        assertEquals(manager.getEpics(), loadedManager.getEpics());
+        assertEquals(manager.getSubtasks(), loadedManager.getSubtasks());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 11, 40), loadedManager.getTasks().get(0).getEndTime());
+        assertEquals(TaskStatus.DONE, loadedManager.getEpics().get(0).getStatus());
+    }
+
+    @Test
+    void shouldConvertToCsvAndBack() throws IOException {
+        File csvFile = File.createTempFile("test", ".csv");
+        File binaryFile = File.createTempFile("test", ".bin");
+
+        BinaryTaskFormat.convertBinaryToCsv(file, csvFile);
+        BinaryTaskFormat.convertCsvToBinary(csvFile, binaryFile);
+
+        assertEquals(manager.getSubtasks(), FileBackedTaskManager.loadFromFile(csvFile).getSubtasks());
+        assertEquals(manager.getEpics(), BinaryFileBackedTaskManager.loadFromFile(binaryFile).getEpics());
+        assertFalse(new File(binaryFile.getPath() + ".tmp").exists(), "Временный файл должен быть переименован");
+        csvFile.delete();
+        binaryFile.delete();
+        new File(csvFile.getPath() + ".prev").delete();
+        new File(binaryFile.getPath() + ".prev").delete();
+    }
+
+    @Test
+    void shouldLoadPreviousGenerationWhenSnapshotEmpty() throws IOException {
+        File previous = new File(file.getPath() + ".prev");
+        try {
+            Files.write(file.toPath(), new byte[0]);
+
+            BinaryFileBackedTaskManager loadedManager = BinaryFileBackedTaskManager.loadFromFile(file);
+
+            assertEquals(manager.getTasks(), loadedManager.getTasks(), "Должна загрузиться предыдущая версия");
+            assertEquals(manager.getEpics().size(), loadedManager.getEpics().size());
+        } finally {
+            previous.delete();
+        }
+    }
+
+    @Test
+    void shouldTreatEmptyFileWithoutPreviousGenerationAsEmptyBoard() throws IOException {
+        File empty = File.createTempFile("test", ".bin");
+        try {
+            assertTrue(BinaryFileBackedTaskManager.loadFromFile(empty).getTasks().isEmpty());
+        } finally {
+            empty.delete();
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptTypeAndStatusBytes() throws IOException {
+        byte[] valid = Files.readAllBytes(file.toPath());
+        // Заголовок: MAGIC (4 байта), версия и число записей, затем тип и статус первой записи.
+        // Контрольная сумма пересчитывается, чтобы до этих байтов дошла проверка записей.
+        for (int offset : new int[]{6, 7}) {
+            byte[] corrupt = valid.clone();
+            corrupt[offset] = (byte) 0xFF;
+            CRC32C checksum = new CRC32C();
+            checksum.update(corrupt, 0, corrupt.length - 4);
+            ByteBuffer.wrap(corrupt).putInt(corrupt.length - 4, (int) checksum.getValue());
+
+            assertThrows(ManagerSaveException.class, () -> BinaryTaskFormat.read(ByteBuffer.wrap(corrupt)),
+                    "Битый байт по смещению " + offset + " должен приводить к ManagerSaveException");
+        }
+    }
+
+    @Test
+    void shouldDetectCorruptionByChecksumAndLoadPreviousGeneration() throws IOException {
+        manager.createTask(new Task("Ещё задача", "Описание"));
+        byte[] corrupt = Files.readAllBytes(file.toPath());
+        corrupt[corrupt.length / 2] ^= 1;
+        Files.write(file.toPath(), corrupt);
+        File previous = new File(file.getPath() + ".prev");
+
+        try {
+            ManagerSaveException exception = assertThrows(ManagerSaveException.class,
+                    () -> BinaryTaskFormat.read(ByteBuffer.wrap(corrupt)));
+            assertTrue(exception.getMessage().contains("Контрольная сумма"));
+            assertEquals(manager.getTasks().size() - 1,
+                    BinaryFileBackedTaskManager.loadFromFile(file).getTasks().size(),
+                    "При повреждении должен загружаться предыдущий снапшот");
+        } finally {
+            previous.delete();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package FileBackedTaskManagerTest;
 
 
+import exceptions.ManagerSaveException;
 import model.Epic;
 import model.Subtask;
 import model.Task;
@@ -8,9 +9,19 @@ import model.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import service.FileBackedTaskManager;
+import service.MappedCsvReader;
+import service.ParallelSnapshotLoader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,12 +72,145 @@ public class FileBackedTaskManagerTest {
         assertEquals(0, loadedManager.getEpics().size(), "Эпик не был удален!");
         assertEquals(0, loadedManager.getSubtasks().size(), "Подзадача не была удалена!");
     }
-}
 
+    @Test
+    void checkLinkSubtaskWrittenBeforeItsEpicTest() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic_id,start_time,end_time,duration\n"
+                + "2,SUBTASK,Подзадача 1,DONE,Описание подзадачи 1,3,20.10.24 10:00,20.10.24 11:00,60\n"
+                + "3,EPIC,Эпик 1,NEW,Описание эпика 1,,null,null,0\n"
+                + "4,SUBTASK,Подзадача 2,DONE,Описание подзадачи 2,3,20.10.24 12:00,20.10.24 12:30,30\n",
+                StandardCharsets.UTF_8);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+
+        Epic epic = loadedManager.getEpicById(3);
+        assertEquals(2, loadedManager.getSubtasksByEpicId(3).size(), "Обе подзадачи должны попасть в эпик");
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 10, 0), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+    }
+
+    @Test
+    void checkLoadFileWithWindowsLineEndingsTest() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic_id,start_time,end_time,duration\r\n"
+                + "1,TASK,Задача 1,IN_PROGRESS,Описание задачи 1,,20.10.24 10:00,20.10.24 11:40,100\r\n"
+                + "\r\n"
+                + "3,EPIC,Эпик 1,NEW,Описание эпика 1,,null,null,0\r\n"
+                + "4,SUBTASK,Подзадача 1,DONE,Описание подзадачи 1,3,null,null,0", StandardCharsets.UTF_8);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+
+        Task task = loadedManager.getTaskById(1);
+        assertEquals("Задача 1", task.getTitle());
+        assertEquals(TaskStatus.IN_PROGRESS, task.getStatus());
+        assertEquals(LocalDateTime.of(2024, 10, 20, 10, 0), task.getStartTime());
+        assertEquals(Duration.ofMinutes(100), task.getDuration());
+        assertEquals(3, loadedManager.getSubtaskById(4).getEpicId());
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(3).getStatus());
+    }
 
+    @Test
+    void checkParallelLoadMatchesSequentialTest() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2024, 10, 20, 10, 0);
+        for (int i = 0; i < 50; i++) {
+            fileBackedTaskManager.createTask(new Task("Задача " + i, "Описание", startTime.plusHours(i),
+                    Duration.ofMinutes(30)));
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            fileBackedTaskManager.createEpic(epic);
+            for (int j = 0; j < i % 4; j++) {
+                fileBackedTaskManager.createSubtask(new Subtask("Подзадача " + j, "Описание", epic.getId(),
+                        TaskStatus.DONE));
+            }
+        }
+
+        try (MappedCsvReader.Mapping mapping = MappedCsvReader.map(file)) {
+            ByteBuffer buffer = mapping.buffer();
+            MappedCsvReader header = new MappedCsvReader(buffer, 0, buffer.limit());
+            header.readLine();
+            int checksumLine = buffer.limit() - 1;
+            while (buffer.get(checksumLine - 1) != '\n') {
+                checksumLine--;
+            }
+            List<Task> sequential = ParallelSnapshotLoader.parse(buffer, header.position(), checksumLine, 1);
+            List<Task> parallel = ParallelSnapshotLoader.parse(buffer, header.position(), checksumLine, 7);
+
+            assertEquals(sequential, parallel, "Параллельная загрузка должна совпадать с последовательной");
+        }
+        assertEquals(new HashSet<>(fileBackedTaskManager.getSubtasks()),
+                new HashSet<>(FileBackedTaskManager.loadFromFile(file).getSubtasks()));
+    }
 
+    @Test
+    void checkLoadPreviousGenerationWhenSnapshotCorruptedTest() throws IOException {
+        Task task = new Task("Задача", "Описание задачи", LocalDateTime.of(2024, 10, 20, 10, 0),
+                Duration.ofMinutes(100));
+        fileBackedTaskManager.createTask(task);
+        fileBackedTaskManager.createTask(new Task("Вторая задача", "Описание", null, Duration.ZERO));
 
+        byte[] snapshot = Files.readAllBytes(file.toPath());
+        snapshot[snapshot.length / 2] ^= 1;
+        Files.write(file.toPath(), snapshot);
 
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(List.of(task), loadedManager.getTasks(), "Должна загрузиться предыдущая версия");
+    }
 
+    @Test
+    void checkLoadPreviousGenerationWhenSnapshotTruncatedTest() throws IOException {
+        Task task = new Task("Задача", "Описание задачи", null, Duration.ZERO);
+        fileBackedTaskManager.createTask(task);
+        fileBackedTaskManager.createTask(new Task("Вторая задача", "Описание", null, Duration.ZERO));
 
+        byte[] snapshot = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(snapshot, snapshot.length - 20));
 
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(file).getTasks());
+        assertFalse(new File(file.getPath() + ".tmp").exists(), "Временный файл должен быть переименован");
+    }
+
+    @Test
+    void checkLoadPreviousGenerationWhenSnapshotEmptyTest() throws IOException {
+        Task task = new Task("Задача", "Описание задачи", null, Duration.ZERO);
+        fileBackedTaskManager.createTask(task);
+        fileBackedTaskManager.createTask(new Task("Вторая задача", "Описание", null, Duration.ZERO));
+
+        Files.write(file.toPath(), new byte[0]);
+
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(file).getTasks(),
+                "Пустой файл рядом с предыдущей версией должен считаться повреждённым");
+    }
+
+    @Test
+    void checkSaveAndLoadAllTypesTest() {
+        Task task = new Task("Задача", "Описание", LocalDateTime.of(2024, 10, 20, 10, 0),
+                Duration.ofMinutes(100));
+        fileBackedTaskManager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        fileBackedTaskManager.createEpic(epic);
+        fileBackedTaskManager.createSubtask(new Subtask("Подзадача 1", "Описание", epic.getId(),
+                TaskStatus.DONE));
+        fileBackedTaskManager.createSubtask(new Subtask("Подзадача 2", "Описание", epic.getId(),
+                TaskStatus.NEW));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(fileBackedTaskManager.getTasks(), loadedManager.getTasks(), "Задачи не совпадают!");
+        assertEquals(LocalDateTime.of(2024, 10, 20, 10, 0), loadedManager.getTasks().get(0).getStartTime());
+        assertEquals(Duration.ofMinutes(100), loadedManager.getTasks().get(0).getDuration());
+        assertEquals(fileBackedTaskManager.getSubtasks(), loadedManager.getSubtasks(), "Подзадачи не совпадают!");
+        assertEquals(fileBackedTaskManager.getEpics(), loadedManager.getEpics(), "Эпики не совпадают!");
+        assertEquals(2, loadedManager.getSubtasksByEpicId(epic.getId()).size());
+    }
+
+    @Test
+    void checkRejectDateWithNonDigitsTest() {
+        byte[] valid = "1,TASK,Задача,NEW,Описание,,20.10.24 10:00,null,100\n".getBytes(StandardCharsets.UTF_8);
+        byte[] corrupt = "1,TASK,Задача,NEW,Описание,,1/.10.24 10:00,null,100\n".getBytes(StandardCharsets.UTF_8);
+
+        Task task = new MappedCsvReader(ByteBuffer.wrap(valid), 0, valid.length).next();
+        assertEquals(LocalDateTime.of(2024, 10, 20, 10, 0), task.getStartTime());
+        assertThrows(ManagerSaveException.class,
+                () -> new MappedCsvReader(ByteBuffer.wrap(corrupt), 0, corrupt.length).next(),
+                "Дата с нецифровыми символами должна отклоняться");
+    }
+}
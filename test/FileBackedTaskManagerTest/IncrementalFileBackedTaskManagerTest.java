@@ -0,0 +1,193 @@
+package FileBackedTaskManagerTest;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.FileBackedTaskManager;
+import service.IncrementalFileBackedTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalFileBackedTaskManagerTest {
+    private File file;
+    private IncrementalFileBackedTaskManager manager;
+    private Epic epic;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("test", ".csv");
+        manager = new IncrementalFileBackedTaskManager(file);
+        for (int i = 0; i < 20; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание", LocalDateTime.of(2024, 10, 20, 10, 0).plusHours(i),
+                    Duration.ofMinutes(30)));
+        }
+        epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), TaskStatus.NEW));
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    void shouldRewriteOnlyChangedSlots() throws IOException {
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        Task task = manager.getTasks().get(5);
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        assertEquals(1, changedSlots(before, Files.readAllBytes(file.toPath())));
+
+        before = Files.readAllBytes(file.toPath());
+        Subtask subtask = manager.getSubtasks().get(0);
+        manager.updateSubtask(new Subtask(subtask.getTitle(), subtask.getDescription(), subtask.getId(),
+                TaskStatus.DONE, epic.getId(), null, Duration.ZERO));
+        assertEquals(2, changedSlots(before, Files.readAllBytes(file.toPath())),
+                "Должны перезаписаться только подзадача и её эпик");
+    }
+
+    @Test
+    void shouldReuseFreedSlotAndLoad() {
+        long length = file.length();
+        manager.deleteTaskById(manager.getTasks().get(0).getId());
+        manager.createTask(new Task("Новая задача", "Описание", null, Duration.ZERO));
+        assertEquals(length, file.length(), "Освободившийся слот должен переиспользоваться");
+
+        IncrementalFileBackedTaskManager loadedManager = IncrementalFileBackedTaskManager.loadFromFile(file);
+        assertEquals(new HashSet<>(manager.getTasks()), new HashSet<>(loadedManager.getTasks()));
+        assertEquals(manager.getSubtasksByEpicId(epic.getId()), loadedManager.getSubtasksByEpicId(epic.getId()));
+
+        Task task = new Task("Ещё задача", "Описание", null, Duration.ZERO);
+        loadedManager.createTask(task);
+        assertTrue(task.getId() > manager.getSubtasks().get(0).getId(), "id не должны повторяться после загрузки");
+    }
+
+    @Test
+    void shouldBeReadableAsCsvSnapshot() {
+        manager.deleteEpicById(epic.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(new HashSet<>(manager.getTasks()), new HashSet<>(loadedManager.getTasks()));
+        assertTrue(loadedManager.getEpics().isEmpty());
+        assertTrue(loadedManager.getSubtasks().isEmpty());
+    }
+
+    @Test
+    void shouldRejectTooLongTaskWithoutChangingBoard() throws IOException {
+        byte[] before = Files.readAllBytes(file.toPath());
+        Task task = manager.getTasks().get(3);
+
+        assertThrows(ManagerSaveException.class,
+                () -> manager.createTask(new Task("Задача", "о".repeat(manager.getSlotSize()))));
+        assertThrows(ManagerSaveException.class,
+                () -> manager.updateTask(new Task("з".repeat(manager.getSlotSize()), task.getDescription(),
+                        task.getId(), TaskStatus.DONE, task.getStartTime(), task.getDuration())));
+
+        assertEquals(20, manager.getTasks().size(), "Отклонённая задача не должна появиться на доске");
+        assertEquals(task, manager.getTaskById(task.getId()));
+        assertEquals(TaskStatus.NEW, manager.getTaskById(task.getId()).getStatus());
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    void shouldRejectSnapshotWithoutSlotHeader() throws IOException {
+        File csvFile = File.createTempFile("plain", ".csv");
+        try {
+            FileBackedTaskManager csvManager = new FileBackedTaskManager(csvFile);
+            csvManager.createTask(new Task("Задача", "Описание"));
+
+            ManagerSaveException exception = assertThrows(ManagerSaveException.class,
+                    () -> IncrementalFileBackedTaskManager.loadFromFile(csvFile));
+            assertTrue(exception.getMessage().contains(";slot="));
+        } finally {
+            csvFile.delete();
+            new File(csvFile.getPath() + ".prev").delete();
+        }
+    }
+
+    @Test
+    void shouldSkipSlotWithBadChecksumAndReuseIt() throws IOException {
+        Task damaged = manager.getTasks().get(4);
+        byte[] content = Files.readAllBytes(file.toPath());
+        // Задачи создавались по порядку, поэтому задача с индексом 4 лежит в слоте 5; портится её название.
+        content[5 * manager.getSlotSize() + 5] ^= 1;
+        Files.write(file.toPath(), content);
+
+        IncrementalFileBackedTaskManager loadedManager = IncrementalFileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(19, loadedManager.getTasks().size());
+        assertNull(loadedManager.getTaskById(damaged.getId()), "Запись из повреждённого слота должна пропускаться");
+        assertEquals(manager.getSubtasksByEpicId(epic.getId()), loadedManager.getSubtasksByEpicId(epic.getId()));
+
+        long length = file.length();
+        loadedManager.createTask(new Task("Новая задача", "Описание", null, Duration.ZERO));
+        assertEquals(length, file.length(), "Повреждённый слот должен переиспользоваться");
+        assertEquals(20, IncrementalFileBackedTaskManager.loadFromFile(file).getTasks().size());
+    }
+
+    @Test
+    void shouldSkipSubtasksOfEpicFromBadSlot() throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        // Эпик создан после 20 задач и лежит в слоте 21.
+        content[21 * manager.getSlotSize() + 5] ^= 1;
+        Files.write(file.toPath(), content);
+
+        IncrementalFileBackedTaskManager loadedManager = IncrementalFileBackedTaskManager.loadFromFile(file);
+
+        assertTrue(loadedManager.getEpics().isEmpty());
+        assertTrue(loadedManager.getSubtasks().isEmpty(), "Подзадачи пропущенного эпика не должны загружаться");
+        assertEquals(20, loadedManager.getTasks().size());
+    }
+
+    @Test
+    void shouldLoadSlotsWithoutChecksumColumn() throws IOException {
+        int slotSize = 256;
+        String[] rows = {
+                "id,type,name,status,description,epic_id,start_time,end_time,duration;slot=" + slotSize,
+                "1,TASK,Задача,NEW,Описание,,null,null,0"
+        };
+        StringBuilder content = new StringBuilder();
+        for (String row : rows) {
+            int padding = slotSize - row.getBytes(StandardCharsets.UTF_8).length - 2;
+            content.append(row).append('\n').append(" ".repeat(padding)).append('\n');
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        IncrementalFileBackedTaskManager loadedManager = IncrementalFileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loadedManager.getTasks().size());
+
+        loadedManager.createTask(new Task("Вторая задача", "Описание", null, Duration.ZERO));
+        assertEquals(2, IncrementalFileBackedTaskManager.loadFromFile(file).getTasks().size(),
+                "Новые записи в старом файле должны писаться в его формате");
+    }
+
+    private int changedSlots(byte[] before, byte[] after) {
+        assertEquals(before.length, after.length);
+        int slotSize = manager.getSlotSize();
+        int changed = 0;
+        for (int slot = 0; slot < before.length / slotSize; slot++) {
+            for (int i = slot * slotSize; i < (slot + 1) * slotSize; i++) {
+                if (before[i] != after[i]) {
+                    changed++;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+}
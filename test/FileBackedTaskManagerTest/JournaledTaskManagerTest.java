@@ -0,0 +1,186 @@
+package FileBackedTaskManagerTest;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.DurabilityMode;
+import service.JournalCompactor;
+import service.JournaledTaskManager;
+import service.Managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournaledTaskManagerTest {
+    private File file;
+    private JournaledTaskManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("journaled", ".csv");
+        file.delete();
+        manager = Managers.getJournaled(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.close();
+        file.delete();
+        manager.getJournalFile().delete();
+    }
+
+    @Test
+    void shouldAppendOneRecordPerChange() throws IOException {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        manager.deleteTaskById(task.getId());
+
+        assertFalse(file.exists(), "Снапшот не должен перезаписываться при каждом изменении");
+        assertEquals(3, Files.readAllLines(manager.getJournalFile().toPath()).size());
+    }
+
+    @Test
+    void shouldRestoreStateFromJournal() throws IOException {
+        Task task = new Task("Задача", "Описание", LocalDateTime.of(2024, 10, 20, 10, 0),
+                Duration.ofMinutes(30));
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), TaskStatus.NEW);
+        manager.createSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.close();
+
+        JournaledTaskManager loadedManager = JournaledTaskManager.loadFromFile(file);
+
+        assertEquals(manager.getTasks(), loadedManager.getTasks());
+        assertEquals(manager.getSubtasks(), loadedManager.getSubtasks());
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epic.getId()).getStatus());
+        assertEquals(manager.getPrioritizedTasks(), loadedManager.getPrioritizedTasks());
+        loadedManager.close();
+    }
+
+    @Test
+    void shouldRestoreTitlesWithSeparators() throws IOException {
+        Task task = new Task("Купить молоко, хлеб", "Строка 1\nСтрока 2,\r\nпуть C:\\new");
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик, первый", "Описание\\c");
+        manager.createEpic(epic);
+        manager.close();
+
+        JournaledTaskManager loadedManager = JournaledTaskManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loadedManager.getTasks(), "Задача должна восстановиться из журнала");
+        assertEquals(manager.getEpics(), loadedManager.getEpics(), "Эпик должен восстановиться из журнала");
+
+        loadedManager.checkpoint();
+        loadedManager.close();
+        JournaledTaskManager checkpointedManager = JournaledTaskManager.loadFromFile(file);
+
+        assertEquals(manager.getTasks(), checkpointedManager.getTasks(), "Задача должна восстановиться из снапшота");
+        assertEquals(manager.getEpics(), checkpointedManager.getEpics(), "Эпик должен восстановиться из снапшота");
+        checkpointedManager.close();
+    }
+
+    @Test
+    void shouldFailWhenPreviousSnapshotDoesNotReachJournal() throws IOException {
+        manager.createTask(new Task("Задача 1", "Описание"));
+        manager.checkpoint();
+        manager.createTask(new Task("Задача 2", "Описание"));
+        manager.checkpoint();
+        manager.createTask(new Task("Задача 3", "Описание"));
+        manager.close();
+
+        // Текущий снапшот повреждён, а в предыдущем поколении нет записи 2: её журнал уже удалён.
+        String snapshot = Files.readString(file.toPath());
+        Files.writeString(file.toPath(), snapshot.replace("Задача 2", "Задача 9"));
+        File previous = new File(file.getPath() + ".prev");
+        try {
+            ManagerSaveException exception = assertThrows(ManagerSaveException.class,
+                    () -> JournaledTaskManager.loadFromFile(file));
+            assertTrue(exception.getMessage().contains("нет записей с 2 по 2"), exception.getMessage());
+        } finally {
+            previous.delete();
+        }
+    }
+
+    @Test
+    void shouldReplayOnlyJournalTailAfterCheckpoint() throws IOException {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), TaskStatus.NEW));
+        manager.checkpoint();
+
+        assertTrue(file.exists());
+        assertEquals(0, manager.getJournalSize());
+
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        manager.deleteEpicById(epic.getId());
+        manager.close();
+
+        JournaledTaskManager loadedManager = JournaledTaskManager.loadFromFile(file);
+
+        assertEquals(1, loadedManager.getTasks().size());
+        assertTrue(loadedManager.getEpics().isEmpty());
+        assertTrue(loadedManager.getSubtasks().isEmpty());
+        loadedManager.close();
+    }
+
+    @Test
+    void shouldPersistConcurrentWritesWithGroupCommit() throws Exception {
+        manager.close();
+        manager = Managers.getJournaled(file, DurabilityMode.GROUP_COMMIT);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    manager.createTask(new Task("Задача", "Описание"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        manager.close();
+
+        JournaledTaskManager loadedManager = JournaledTaskManager.loadFromFile(file);
+        assertEquals(200, loadedManager.getTasks().size());
+        loadedManager.close();
+    }
+
+    @Test
+    void shouldCompactInBackgroundWhenJournalExceedsThreshold() throws Exception {
+        JournalCompactor compactor = new JournalCompactor(manager, Duration.ofHours(1), 1);
+        compactor.start();
+        manager.createTask(new Task("Задача", "Описание"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (manager.getJournalSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        compactor.close();
+
+        assertEquals(0, manager.getJournalSize(), "Журнал должен быть усечён после компактизации");
+        assertTrue(file.exists(), "Снапшот должен быть записан");
+        assertFalse(compactor.getLastCompactionDuration().isZero());
+        assertEquals(1, JournaledTaskManager.loadFromFile(file).getTasks().size());
+    }
+}
@@ -0,0 +1,87 @@
+package FileBackedTaskManagerTest;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.FileBackedTaskManager;
+import service.Managers;
+import service.WriteBehindTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindTaskManagerTest {
+    private File file;
+    private WriteBehindTaskManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("write-behind", ".csv");
+        manager = Managers.getWriteBehind(file, Duration.ofHours(1), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+        file.delete();
+    }
+
+    @Test
+    void shouldCoalesceChangesUntilFlush() {
+        manager.createTask(new Task("Задача 1", "Описание"));
+        manager.createEpic(new Epic("Эпик", "Описание"));
+
+        assertEquals(0, file.length(), "Файл не должен перезаписываться на каждое изменение");
+        assertEquals(2, manager.getPendingChanges());
+
+        manager.flush();
+
+        assertEquals(0, manager.getPendingChanges());
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loadedManager.getTasks().size());
+        assertEquals(1, loadedManager.getEpics().size());
+    }
+
+    @Test
+    void shouldFlushInBackgroundAfterMaxPendingChanges() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+
+        assertTrue(manager.awaitFlush(Duration.ofSeconds(5)), "Фоновая запись должна завершиться");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getTasks().size());
+    }
+
+    @Test
+    void shouldNotLoseChangesOnClose() {
+        manager.createTask(new Task("Задача", "Описание"));
+        manager.close();
+
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getTasks().size());
+    }
+
+    @Test
+    void shouldRejectChangesAfterClose() {
+        manager.close();
+
+        ManagerSaveException exception = assertThrows(ManagerSaveException.class,
+                () -> manager.createTask(new Task("Задача", "Описание")));
+        assertTrue(exception.getMessage().contains("закрыт"));
+        assertTrue(manager.getTasks().isEmpty(), "Отклонённое изменение не должно попасть в память");
+    }
+
+    @Test
+    void shouldRejectNonPositiveFlushInterval() {
+        for (Duration interval : new Duration[]{Duration.ZERO, Duration.ofSeconds(-1), Duration.ofNanos(1)}) {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> Managers.getWriteBehind(file, interval, 3), "Интервал " + interval);
+            assertTrue(exception.getMessage().contains("Интервал отложенной записи"));
+        }
+    }
+}
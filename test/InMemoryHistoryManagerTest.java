@@ -1,14 +1,18 @@
 
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import service.AsyncHistoryManager;
 import service.HistoryManager;
 import service.InMemoryTaskManager;
 import service.Managers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -69,6 +73,58 @@ public class InMemoryHistoryManagerTest {
         assertEquals(task, history.get(0));
     }
 
+    @Test
+    void shouldEvictLeastRecentlyViewedTask() {
+        HistoryManager boundedHistory = Managers.getHistoryManager(2);
+        Task task1 = new Task("Задача 1", "Описание задачи 1");
+        Task task2 = new Task("Задача 2", "Описание задачи 2");
+        Task task3 = new Task("Задача 3", "Описание задачи 3");
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+
+        boundedHistory.addInHistory(task1);
+        boundedHistory.addInHistory(task2);
+        boundedHistory.addInHistory(task1);
+        boundedHistory.addInHistory(task3);
+
+        assertEquals(List.of(task1, task3), boundedHistory.getHistory(),
+                "Должна вытесняться задача, которую дольше всех не просматривали");
+    }
+
+    @Test
+    void shouldKeepSeparateHistoryForEachManager() {
+        HistoryManager otherHistory = Managers.getDefaultHistoryManager();
+        Task task = new Task("Задача", "Описание задачи");
+        taskManager.createTask(task);
+
+        historyManager.addInHistory(task);
+
+        assertTrue(otherHistory.getHistory().isEmpty(), "История одного менеджера не должна влиять на другой");
+        otherHistory.removeFromHistory(task.getId());
+        assertEquals(List.of(task), historyManager.getHistory());
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> Managers.getHistoryManager(0));
+    }
+
+    @Test
+    void shouldNotRestoreDeletedTaskFromLateView() {
+        Task task = new Task("Задача", "Описание задачи", 1, TaskStatus.NEW);
+        Set<Integer> existingIds = new HashSet<>(Set.of(1));
+        AsyncHistoryManager asyncHistory = new AsyncHistoryManager(historyManager, existingIds::contains);
+
+        // Просмотр прочитал задачу до удаления, но попал в очередь уже после события удаления.
+        asyncHistory.addInHistory(task);
+        existingIds.remove(1);
+        asyncHistory.removeFromHistory(1);
+        asyncHistory.addInHistory(task);
+
+        assertTrue(asyncHistory.getHistory().isEmpty(), "Удалённая задача не должна вернуться в историю");
+    }
+
     @Test
     void shouldGetEmptyHistory() {
         List<Task> history = historyManager.getHistory();
@@ -9,6 +9,7 @@ import service.InMemoryTaskManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -68,6 +69,76 @@ public class InMemoryTaskManagerTest {
         assertThrows(ManagerSaveException.class, () -> taskManager.createTask(task2));
     }
 
+    @Test
+    void shouldAllowAdjacentTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task1 = new Task("Задача 1", "Описание задачи 1", startTime, Duration.ofHours(1));
+        Task task2 = new Task("Задача 2", "Описание задачи 2", startTime.plusHours(1), Duration.ofHours(1));
+
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+
+        assertEquals(2, taskManager.getPrioritizedTasks().size(), "Смежные задачи не пересекаются");
+    }
+
+    @Test
+    void shouldReleaseTimeSlotAfterDeleteAndUpdate() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task1 = new Task("Задача 1", "Описание задачи 1", startTime, Duration.ofHours(1));
+        taskManager.createTask(task1);
+        taskManager.deleteTaskById(task1.getId());
+
+        Task task2 = new Task("Задача 2", "Описание задачи 2", startTime, Duration.ofHours(1));
+        taskManager.createTask(task2);
+
+        task2.setStartTime(startTime.plusHours(5));
+        taskManager.updateTask(task2);
+
+        Task task3 = new Task("Задача 3", "Описание задачи 3", startTime, Duration.ofHours(2));
+        taskManager.createTask(task3);
+
+        Task task4 = new Task("Задача 4", "Описание задачи 4", startTime.plusHours(4), Duration.ofHours(2));
+        assertThrows(ManagerSaveException.class, () -> taskManager.createTask(task4));
+    }
+
+    @Test
+    void shouldNotUpdateTaskIntoOccupiedSlot() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task1 = new Task("Задача 1", "Описание задачи 1", startTime, Duration.ofHours(1));
+        Task task2 = new Task("Задача 2", "Описание задачи 2", startTime.plusHours(2), Duration.ofHours(1));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+
+        Task moved = new Task("Задача 2", "Описание задачи 2", task2.getId(), TaskStatus.NEW,
+                startTime.plusMinutes(30), Duration.ofHours(1));
+
+        assertThrows(ManagerSaveException.class, () -> taskManager.updateTask(moved));
+    }
+
+    @Test
+    void shouldKeepPrioritizedTasksInSyncOnUpdate() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task1 = new Task("Задача 1", "Описание задачи 1", startTime, Duration.ofHours(1));
+        Task task2 = new Task("Задача 2", "Описание задачи 2", startTime.plusHours(2), Duration.ofHours(1));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+
+        task1.setStartTime(startTime.plusHours(4));
+        taskManager.updateTask(task1);
+
+        assertEquals(List.of(task2.getId(), task1.getId()),
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Задача, изменённая на месте, должна занять новую позицию");
+
+        Task withoutTime = new Task("Задача 2", "Описание задачи 2", task2.getId(), TaskStatus.NEW, null,
+                Duration.ZERO);
+        taskManager.updateTask(withoutTime);
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size(), "Старая запись задачи должна быть удалена");
+        assertSame(withoutTime, prioritized.get(1), "Задача без времени должна быть в конце списка");
+    }
+
     @Test
     void shouldReturnEmptyListWhenNoTasks() {
         assertTrue(taskManager.getTasks().isEmpty(), "Список задач должен быть пустым");
@@ -107,6 +178,24 @@ public class InMemoryTaskManagerTest {
                         updatedEpic.getStatus().toString().equalsIgnoreCase("DONE"),
                 "Статус эпика должен быть IN_PROGRESS или DONE");
     }
+
+    @Test
+    void shouldChangeVersionOnlyWhenBoardChanges() {
+        Task task = new Task("Задача", "Описание задачи");
+        long initialVersion = taskManager.getVersion();
+
+        taskManager.createTask(task);
+        long versionAfterCreate = taskManager.getVersion();
+        taskManager.getTaskById(task.getId());
+        taskManager.getTasks();
+
+        assertTrue(versionAfterCreate > initialVersion, "Создание задачи должно менять версию");
+        assertEquals(versionAfterCreate, taskManager.getVersion(), "Чтение не должно менять версию");
+
+        taskManager.deleteTaskById(task.getId());
+
+        assertTrue(taskManager.getVersion() > versionAfterCreate, "Удаление задачи должно менять версию");
+    }
 }
 
 
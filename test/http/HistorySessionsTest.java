@@ -0,0 +1,125 @@
+package http;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistorySessionsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private Task task(int id) {
+        Task task = new Task("Задача " + id, "Описание");
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void shouldLimitHistoryOfEachClient() {
+        HistorySessions sessions = new HistorySessions(10, 2, Duration.ofMinutes(1), clock::get);
+
+        sessions.recordView("alice", task(1));
+        sessions.recordView("alice", task(2));
+        sessions.recordView("alice", task(3));
+
+        assertEquals(List.of(task(2), task(3)), sessions.getHistory("alice"));
+        assertTrue(sessions.getHistory("bob").isEmpty());
+    }
+
+    @Test
+    void shouldEvictIdleSessions() {
+        HistorySessions sessions = new HistorySessions(10, 10, Duration.ofMinutes(1), clock::get);
+        sessions.recordView("alice", task(1));
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        sessions.recordView("bob", task(1));
+
+        clock.addAndGet(Duration.ofSeconds(45).toNanos());
+        sessions.evictIdle();
+
+        assertEquals(1, sessions.size());
+        assertTrue(sessions.getHistory("alice").isEmpty(), "Простаивающая сессия должна быть удалена");
+        assertEquals(List.of(task(1)), sessions.getHistory("bob"));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSessionWhenFull() {
+        HistorySessions sessions = new HistorySessions(2, 10, Duration.ofMinutes(1), clock::get);
+        sessions.recordView("alice", task(1));
+        clock.incrementAndGet();
+        sessions.recordView("bob", task(1));
+        clock.incrementAndGet();
+        sessions.getHistory("alice");
+        clock.incrementAndGet();
+
+        sessions.recordView("carol", task(1));
+
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.getHistory("bob").isEmpty(), "Должна вытесняться давно неактивная сессия");
+        assertFalse(sessions.getHistory("alice").isEmpty());
+    }
+
+    @Test
+    void shouldEvictOldestSessionsInBatches() {
+        HistorySessions sessions = new HistorySessions(64, 10, Duration.ofMinutes(1), clock::get);
+        for (int i = 0; i < 64; i++) {
+            sessions.recordView("client-" + i, task(1));
+            clock.incrementAndGet();
+        }
+
+        sessions.recordView("new", task(1));
+
+        // Вытесняется пачка из 64 / 16 = 4 самых старых сессий, на её место приходит одна новая.
+        assertEquals(61, sessions.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sessions.getHistory("client-" + i).isEmpty(), "Сессия client-" + i + " должна быть вытеснена");
+        }
+        assertFalse(sessions.getHistory("client-4").isEmpty());
+        assertFalse(sessions.getHistory("new").isEmpty());
+    }
+
+    @Test
+    void shouldKeepHistoriesConsistentUnderConcurrentEviction() throws InterruptedException {
+        HistorySessions sessions = new HistorySessions(4, 1_000, Duration.ofMinutes(1), System::nanoTime);
+        int threads = 8;
+        int views = 500;
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String clientId = "client-" + t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 1; i <= views; i++) {
+                        sessions.recordView(clientId, task(i));
+                        // Другие клиенты могут вытеснить сессию целиком, но не оставить её без последнего просмотра.
+                        List<Task> history = sessions.getHistory(clientId);
+                        assertTrue(history.isEmpty() || history.contains(task(i)),
+                                "Просмотр " + i + " клиента " + clientId + " потерян");
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertTrue(sessions.size() <= threads);
+    }
+
+    @Test
+    void shouldIgnoreMissingOrTooLongClientId() {
+        assertNull(HistorySessions.clientId(null));
+        assertNull(HistorySessions.clientId(" "));
+        assertNull(HistorySessions.clientId("x".repeat(HistorySessions.MAX_CLIENT_ID_LENGTH + 1)));
+        assertEquals("alice", HistorySessions.clientId("alice"));
+    }
+}
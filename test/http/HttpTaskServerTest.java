@@ -16,13 +16,20 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTaskServerTest {
 
+    private static final long SLOW_REQUEST_MILLIS = 300;
+
     private TaskManager manager;
     private HttpTaskServer taskServer;
     private Gson gson;
@@ -60,4 +67,88 @@ public class HttpTaskServerTest {
         assertEquals(1, tasksFromManager.size(), "Некорректное количество задач");
         assertEquals("Test 2", tasksFromManager.get(0).getTitle(), "Некорректное имя задачи");
     }
+
+    @Test
+    public void testSlowRequestsRunInParallelOnVirtualThreads() throws IOException, InterruptedException {
+        restartWithSlowManager(HttpTaskServer.virtualThreadExecutor());
+        assertParallel();
+    }
+
+    @Test
+    public void testSlowRequestsRunInParallelOnBoundedPool() throws IOException, InterruptedException {
+        restartWithSlowManager(HttpTaskServer.boundedPlatformExecutor(4, 16));
+        assertParallel();
+    }
+
+    @Test
+    public void testSingleArgumentConstructorHandlesRequestsOneByOne() throws IOException, InterruptedException {
+        taskServer.stop();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        manager = new InMemoryTaskManager() {
+            @Override
+            public Task getTaskById(int id) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(SLOW_REQUEST_MILLIS / 3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return super.getTaskById(id);
+            }
+        };
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId())).GET().build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+
+        assertEquals(1, maxInFlight.get(), "Непотокобезопасный менеджер не должен вызываться параллельно");
+    }
+
+    private void restartWithSlowManager(ExecutorService executor) throws IOException {
+        taskServer.stop();
+        manager = new InMemoryTaskManager() {
+            @Override
+            public List<Task> getTasks() {
+                try {
+                    Thread.sleep(SLOW_REQUEST_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTasks();
+            }
+        };
+        taskServer = new HttpTaskServer(manager, executor, 64);
+        taskServer.start();
+    }
+
+    private void assertParallel() throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 4 * SLOW_REQUEST_MILLIS,
+                "Медленные запросы должны обрабатываться параллельно, заняло " + elapsedMillis + " мс");
+    }
 }
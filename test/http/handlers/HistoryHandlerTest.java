@@ -2,6 +2,8 @@ package http.handlers;
 
 import com.google.gson.Gson;
 import http.HttpTaskServer;
+import model.Epic;
+import model.Subtask;
 import model.Task;
 import model.TaskStatus;
 import org.junit.jupiter.api.AfterEach;
@@ -62,6 +64,75 @@ public class HistoryHandlerTest {
         assertEquals(1, historyTasks.size(), "Количество задач в истории должно быть 1");
     }
 
+    @Test
+    void shouldKeepSeparateHistoryForEachClient() throws IOException, InterruptedException {
+        Task task1 = new Task("Задача 1", "Описание задачи 1", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.now());
+        Task task2 = new Task("Задача 2", "Описание задачи 2", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.now().plusHours(2));
+        manager.createTask(task1);
+        manager.createTask(task2);
+
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks/" + task1.getId()))
+                .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks/" + task2.getId()))
+                .header("X-Client-Id", "bob").GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/history"))
+                .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Ожидался статус 200 OK");
+        Task[] historyTasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, historyTasks.length, "В истории клиента должны быть только его просмотры");
+        assertEquals(task1.getId(), historyTasks[0].getId());
+
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks/" + task1.getId()))
+                .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/history"))
+                .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode(), "Удалённая задача не должна оставаться в истории клиента");
+    }
+
+    @Test
+    void shouldRemoveEpicAndItsSubtasksFromClientHistoryOnDelete() throws IOException, InterruptedException {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание подзадачи", 0, TaskStatus.NEW, epic.getId(),
+                LocalDateTime.now(), Duration.ofMinutes(30));
+        manager.createSubtask(subtask);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (String path : new String[]{"/epics/" + epic.getId(), "/subtasks/" + subtask.getId()}) {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080" + path))
+                    .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:8080/epics/" + epic.getId())).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/history"))
+                .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode(), "Эпик и его подзадачи не должны оставаться в истории клиента");
+    }
+
+    @Test
+    void shouldNotDeleteAllTasksByCollectionPath() throws IOException, InterruptedException {
+        Task task = new Task("Задача", "Описание задачи", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.now());
+        manager.createTask(task);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (String path : new String[]{"/tasks", "/epics", "/subtasks"}) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:8080" + path)).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, response.statusCode(), "DELETE " + path + " не должен удалять все задачи");
+        }
+        assertEquals(1, manager.getTasks().size());
+    }
+
     @Test
     void shouldReturnNotFoundWhenHistoryIsEmpty() throws IOException, InterruptedException {
         HttpClient client = HttpClient.newHttpClient();
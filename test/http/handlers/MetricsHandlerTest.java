@@ -0,0 +1,65 @@
+package http.handlers;
+
+import http.HttpTaskServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsHandlerTest {
+
+    private HttpTaskServer taskServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        taskServer = new HttpTaskServer(new InMemoryTaskManager());
+        taskServer.start();
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
+
+    @Test
+    void shouldExposeHandlerAndManagerMetrics() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest missingTask = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks/1")).GET().build();
+        assertEquals(404, client.send(missingTask, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Ожидался статус 404 Not Found");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/metrics")).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Ожидался статус 200 OK");
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"),
+                "Метрики должны отдаваться в текстовом формате");
+        String body = response.body();
+        assertTrue(body.contains("kanban_http_requests_total{handler=\"/tasks\",code=\"404\"}"),
+                "Должен быть счётчик запросов по обработчику и коду ответа");
+        assertTrue(body.contains("kanban_http_request_duration_seconds_count{handler=\"/tasks\",code=\"404\"}"),
+                "Должна быть гистограмма длительности запросов");
+        assertTrue(body.contains("kanban_manager_operation_seconds_count{operation=\"getTaskById\"}"),
+                "Должна быть гистограмма операций менеджера");
+    }
+
+    @Test
+    void shouldNotAllowPostToMetrics() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/metrics"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode(), "Ожидался статус 405 Method Not Allowed");
+    }
+}
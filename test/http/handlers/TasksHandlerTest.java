@@ -60,6 +60,21 @@ public class TasksHandlerTest {
         assertEquals("Задача", tasks.get(0).getTitle(), "Задача создана.");
     }
 
+    @Test
+    void shouldCreateTaskWithoutStartTime() throws IOException, InterruptedException {
+        String json = gson.toJson(new Task("Задача", "Описание задачи"));
+        assertTrue(json.contains("\"startTime\": null"), "Сервер сериализует пустое время как null");
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        assertNull(manager.getTasks().get(0).getStartTime());
+    }
+
     @Test
     public void shouldGetAllTasks() throws IOException, InterruptedException {
         Task task = new Task("Задача", "Описание задачи",
@@ -186,4 +201,97 @@ public class TasksHandlerTest {
 
         assertEquals(404, response.statusCode());
     }
+
+    @Test
+    void shouldReturnFreshListAfterChange() throws IOException, InterruptedException {
+        manager.createTask(new Task("Задача 1", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now()));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).GET().build();
+        HttpResponse<String> first = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> cached = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        manager.createTask(new Task("Задача 2", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now().plusHours(1)));
+        HttpResponse<String> afterChange = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(first.body(), cached.body(), "Без изменений должен возвращаться тот же список");
+        assertEquals(1, gson.fromJson(first.body(), Task[].class).length, "Ожидалась одна задача");
+        assertEquals(2, gson.fromJson(afterChange.body(), Task[].class).length,
+                "После изменения список должен обновиться");
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenETagMatches() throws IOException, InterruptedException {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now());
+        manager.createTask(task);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (URI url : new URI[]{URI.create("http://localhost:8080/tasks"),
+                URI.create("http://localhost:8080/tasks/" + task.getId())}) {
+            HttpResponse<String> first = client.send(HttpRequest.newBuilder(url).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String etag = first.headers().firstValue("ETag").orElse(null);
+            assertNotNull(etag, "Ответ должен содержать ETag");
+
+            HttpResponse<String> conditional = client.send(HttpRequest.newBuilder(url)
+                    .header("If-None-Match", etag)
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(304, conditional.statusCode(), "Ожидался статус 304 Not Modified");
+            assertTrue(conditional.body().isEmpty(), "Ответ 304 не должен содержать тело");
+        }
+    }
+
+    @Test
+    void shouldReturnFullResponseAfterChangeDespiteOldETag() throws IOException, InterruptedException {
+        Task task = new Task("Задача", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now());
+        manager.createTask(task);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        String etag = client.send(HttpRequest.newBuilder(url).GET().build(), HttpResponse.BodyHandlers.ofString())
+                .headers().firstValue("ETag").orElseThrow();
+
+        task.setTitle("Обновленная задача");
+        manager.updateTask(task);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(url)
+                .header("If-None-Match", etag)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "После изменения ожидался статус 200 OK");
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null), "ETag должен измениться");
+        assertTrue(response.body().contains("Обновленная задача"), "Ответ должен содержать изменённую задачу");
+    }
+
+    @Test
+    void shouldNotMatchETagFromPreviousServer() throws IOException, InterruptedException {
+        manager.createTask(new Task("Задача", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now()));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        String etag = client.send(HttpRequest.newBuilder(url).GET().build(), HttpResponse.BodyHandlers.ofString())
+                .headers().firstValue("ETag").orElseThrow();
+
+        taskServer.stop();
+        manager = new InMemoryTaskManager();
+        manager.createTask(new Task("Другая задача", "Описание", TaskStatus.NEW,
+                Duration.ofMinutes(5), LocalDateTime.now()));
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(url)
+                .header("If-None-Match", etag)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "ETag прежнего сервера не должен совпасть с новой доской");
+        assertTrue(response.body().contains("Другая задача"), "Ответ должен содержать задачу новой доски");
+    }
 }
@@ -0,0 +1,96 @@
+package metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import service.ConcurrentTaskManager;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    private static List<RecordedEvent> record(Runnable action) throws IOException {
+        Path dump = Files.createTempFile("kanban", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TimeIntersectionCheckEvent.class).withoutThreshold();
+            recording.enable(EpicStatusUpdateEvent.class).withoutThreshold();
+            recording.enable(PersistenceSaveEvent.class).withoutThreshold();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), "Ожидалось одно событие " + name);
+        return matching.getFirst();
+    }
+
+    @Test
+    void shouldRecordManagerEvents() throws IOException {
+        assertManagerEvents(new InMemoryTaskManager());
+    }
+
+    @Test
+    void shouldRecordManagerEventsInConcurrentManager() throws IOException {
+        assertManagerEvents(new ConcurrentTaskManager());
+    }
+
+    private static void assertManagerEvents(TaskManager manager) throws IOException {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        manager.createEpic(epic);
+
+        List<RecordedEvent> events = record(() -> manager.createSubtask(new Subtask("Подзадача", "Описание",
+                0, TaskStatus.DONE, epic.getId(), LocalDateTime.of(2030, 1, 1, 10, 0), Duration.ofHours(1))));
+
+        RecordedEvent check = single(events, "kanban.TimeIntersectionCheck");
+        assertEquals(-1, check.getInt("intersectingTaskId"), "Пересечения быть не должно");
+        RecordedEvent status = single(events, "kanban.EpicStatusUpdate");
+        assertEquals(epic.getId(), status.getInt("epicId"), "Неверный id эпика");
+        assertEquals(1, status.getInt("subtaskCount"), "Неверное число подзадач");
+        assertEquals(2, status.getInt("boardSize"), "Неверный размер доски");
+        assertEquals("DONE", status.getString("status"), "Неверный статус эпика");
+    }
+
+    @Test
+    void shouldRecordBytesWrittenBySave() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        try {
+            FileBackedTaskManager manager = new FileBackedTaskManager(file);
+
+            List<RecordedEvent> events = record(() -> manager.createTask(new Task("Задача", "Описание",
+                    TaskStatus.NEW, Duration.ofHours(1), LocalDateTime.of(2030, 1, 1, 10, 0))));
+
+            RecordedEvent save = single(events, "kanban.PersistenceSave");
+            assertEquals("snapshot", save.getString("operation"), "Неверная операция");
+            assertEquals(1, save.getInt("boardSize"), "Неверный размер доски");
+            assertEquals(file.length(), save.getLong("bytesWritten"), "Неверное число записанных байт");
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".prev").delete();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void shouldReturnSameSeriesForSameLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        Counter first = registry.counter("requests_total", "Запросы", "code", "200");
+        Counter second = registry.counter("requests_total", "Запросы", "code", "200");
+        Counter other = registry.counter("requests_total", "Запросы", "code", "404");
+
+        assertSame(first, second, "Для одинаковых меток должен возвращаться один счётчик");
+        assertNotSame(first, other, "Для разных меток счётчики должны различаться");
+    }
+
+    @Test
+    void shouldRenderCounterInPrometheusFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Запросы", "handler", "/tasks", "code", "200").add(3);
+
+        String text = registry.render();
+
+        assertTrue(text.contains("# TYPE requests_total counter\n"), "Должен быть указан тип счётчика");
+        assertTrue(text.contains("requests_total{handler=\"/tasks\",code=\"200\"} 3\n"),
+                "Значение счётчика должно выводиться с метками");
+    }
+
+    @Test
+    void shouldRenderCumulativeHistogramBuckets() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("latency_seconds", "Задержка", "operation", "save");
+        histogram.recordNanos(10_000);
+        histogram.recordNanos(10_000);
+        histogram.recordNanos(1_000_000_000);
+        histogram.recordNanos(Long.MAX_VALUE / 2);
+
+        String text = registry.render();
+
+        assertEquals(4, histogram.count(), "Все замеры должны попасть в гистограмму");
+        assertTrue(text.contains("# TYPE latency_seconds histogram\n"), "Должен быть указан тип гистограммы");
+        assertTrue(text.contains("latency_seconds_bucket{operation=\"save\",le=\"1.2288E-5\"} 2\n"),
+                "Корзина должна учитывать замеры не длиннее своей границы");
+        assertTrue(text.contains("latency_seconds_bucket{operation=\"save\",le=\"1.073741824\"} 3\n"),
+                "Корзины должны быть накопительными");
+        assertTrue(text.contains("latency_seconds_bucket{operation=\"save\",le=\"+Inf\"} 4\n"),
+                "Корзина +Inf должна содержать все замеры");
+        assertTrue(text.contains("latency_seconds_count{operation=\"save\"} 4\n"), "Неверное количество замеров");
+    }
+
+    @Test
+    void shouldRejectSameNameWithDifferentType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("duplicate", "Счётчик");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("duplicate", "Гистограмма"),
+                "Имя метрики не может принадлежать разным типам");
+    }
+}
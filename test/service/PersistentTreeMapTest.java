@@ -0,0 +1,99 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentTreeMapTest {
+
+    private static void assertSameContent(TreeMap<Integer, String> expected, PersistentTreeMap<Integer, String> map) {
+        map.checkInvariants();
+        assertEquals(expected.size(), map.size(), "Размер дерева");
+        assertEquals(expected.isEmpty(), map.isEmpty());
+        assertEquals(new ArrayList<>(expected.values()), map.values(), "Значения должны идти в порядке ключей");
+    }
+
+    @Test
+    void shouldMatchTreeMapOnRandomPutsAndRemoves() {
+        Random random = new Random(7);
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) < 2) {
+                String value = "v" + step;
+                map = map.put(key, value);
+                expected.put(key, value);
+            } else {
+                map = map.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.get(key), map.get(key), "Шаг " + step + ": значение по ключу " + key);
+            if (step % 100 == 0) {
+                assertSameContent(expected, map);
+            }
+        }
+        assertSameContent(expected, map);
+    }
+
+    @Test
+    void shouldKeepOldVersionsUnchanged() {
+        Random random = new Random(11);
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        List<PersistentTreeMap<Integer, String>> versions = new ArrayList<>();
+        List<TreeMap<Integer, String>> snapshots = new ArrayList<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            int key = random.nextInt(200);
+            if (random.nextBoolean()) {
+                map = map.put(key, "v" + step);
+                expected.put(key, "v" + step);
+            } else {
+                map = map.remove(key);
+                expected.remove(key);
+            }
+            if (step % 50 == 0) {
+                versions.add(map);
+                snapshots.add(new TreeMap<>(expected));
+            }
+        }
+
+        for (int i = 0; i < versions.size(); i++) {
+            assertSameContent(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void shouldRebalanceOnMonotonicKeys() {
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int key = 0; key < 1_000; key++) {
+            map = map.put(key, "v" + key);
+            expected.put(key, "v" + key);
+            map.checkInvariants();
+        }
+        for (int key = 999; key >= 0; key -= 3) {
+            map = map.remove(key);
+            expected.remove(key);
+            map.checkInvariants();
+        }
+        assertSameContent(expected, map);
+    }
+
+    @Test
+    void shouldReturnSameVersionWhenRemovingMissingKey() {
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.<Integer, String>empty().put(1, "a").put(2, "b");
+
+        assertSame(map, map.remove(3), "Удаление отсутствующего ключа не должно создавать новую версию");
+        assertNull(map.get(3));
+        assertTrue(map.clear().isEmpty());
+        assertEquals(2, map.size(), "clear() не должен менять исходную версию");
+    }
+}
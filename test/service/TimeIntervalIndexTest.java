@@ -0,0 +1,98 @@
+package service;
+
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeIntervalIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 10, 20, 0, 0);
+
+    private static Task task(int id, int startMinute, int durationMinutes) {
+        return new Task("Задача " + id, "Описание", id, TaskStatus.NEW, START.plusMinutes(startMinute),
+                Duration.ofMinutes(durationMinutes));
+    }
+
+    private static boolean overlaps(Task a, Task b) {
+        return a.getStartTime().isBefore(b.getEndTime()) && a.getEndTime().isAfter(b.getStartTime());
+    }
+
+    private static Optional<Task> bruteForceOverlap(Map<Integer, Task> model, Task probe) {
+        return model.values().stream()
+                .filter(task -> task.getId() != probe.getId() && overlaps(task, probe))
+                .findFirst();
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        TimeIntervalIndex index = new TimeIntervalIndex();
+        Map<Integer, Task> model = new TreeMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(300);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                Task task = task(id, random.nextInt(5_000), random.nextInt(120));
+                index.add(task);
+                model.put(id, task);
+            } else if (operation < 8) {
+                index.remove(id);
+                model.remove(id);
+            } else {
+                Task probe = task(id, random.nextInt(5_000), random.nextInt(120));
+                Optional<Task> expected = bruteForceOverlap(model, probe);
+                Optional<Task> found = index.findOverlap(probe);
+                assertEquals(expected.isPresent(), found.isPresent(), "Шаг " + step + ": неверный ответ для " + probe);
+                found.ifPresent(task -> {
+                    assertSame(model.get(task.getId()), task, "Найдена задача, которой нет в индексе");
+                    assertTrue(overlaps(task, probe), "Найденная задача не пересекается с проверяемой");
+                });
+            }
+            index.checkInvariants();
+            assertEquals(model.size(), index.size(), "Шаг " + step + ": размер индекса");
+        }
+    }
+
+    @Test
+    void shouldKeepInvariantsOnMonotonicInsertsAndDeletes() {
+        TimeIntervalIndex index = new TimeIntervalIndex();
+        for (int id = 1; id <= 1_000; id++) {
+            index.add(task(id, id * 10, 5));
+            index.checkInvariants();
+        }
+        assertTrue(index.findOverlap(task(0, 5_000, 1)).isPresent());
+
+        for (int id = 1; id <= 1_000; id += 2) {
+            index.remove(id);
+            index.checkInvariants();
+        }
+        assertEquals(500, index.size());
+        assertFalse(index.findOverlap(task(0, 10, 5)).isPresent(), "Окно удалённой задачи должно освободиться");
+        assertTrue(index.findOverlap(task(0, 20, 5)).isPresent());
+    }
+
+    @Test
+    void shouldIgnoreTasksWithoutTimeAndRemovalOfMissingIds() {
+        TimeIntervalIndex index = new TimeIntervalIndex();
+        index.add(task(1, 0, 60));
+        index.add(new Task("Без времени", "Описание", 2, TaskStatus.NEW, null, Duration.ZERO));
+        index.remove(3);
+
+        assertEquals(1, index.size());
+        index.checkInvariants();
+
+        index.add(new Task("Задача 1", "Описание", 1, TaskStatus.NEW, null, Duration.ZERO));
+        assertEquals(0, index.size(), "Задача, потерявшая время, должна уйти из индекса");
+        index.checkInvariants();
+    }
+}
@@ -0,0 +1,83 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntArrayListTest {
+
+    private static void assertSameContent(List<Integer> expected, IntArrayList list) {
+        assertEquals(expected.size(), list.size(), "Размер списка");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((int) expected.get(i), list.get(i), "Элемент " + i);
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+    }
+
+    @Test
+    void shouldMatchArrayListAndKeepSharedCopiesFrozen() {
+        Random random = new Random(3);
+        List<IntArrayList> lists = new ArrayList<>();
+        List<List<Integer>> expected = new ArrayList<>();
+        lists.add(new IntArrayList());
+        expected.add(new ArrayList<>());
+
+        for (int step = 0; step < 10_000; step++) {
+            int index = random.nextInt(lists.size());
+            IntArrayList list = lists.get(index);
+            List<Integer> model = expected.get(index);
+            int value = random.nextInt(50);
+            switch (random.nextInt(10)) {
+                case 0 -> {
+                    lists.add(list.sharedCopy());
+                    expected.add(new ArrayList<>(model));
+                }
+                case 1 -> {
+                    list.clear();
+                    model.clear();
+                }
+                case 2, 3, 4 -> assertEquals(model.remove(Integer.valueOf(value)), list.removeValue(value),
+                        "Шаг " + step + ": результат removeValue");
+                default -> {
+                    list.add(value);
+                    model.add(value);
+                }
+            }
+            if (lists.size() > 40) {
+                lists.remove(1);
+                expected.remove(1);
+            }
+            for (int i = 0; i < lists.size(); i++) {
+                assertSameContent(expected.get(i), lists.get(i));
+            }
+        }
+    }
+
+    @Test
+    void shouldNotLeakAppendsIntoEarlierCopy() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+        list.add(2);
+        IntArrayList copy = list.sharedCopy();
+
+        list.add(3);
+        copy.add(4);
+
+        assertSameContent(List.of(1, 2, 3), list);
+        assertSameContent(List.of(1, 2, 4), copy);
+    }
+
+    @Test
+    void shouldRejectIndexOutsideList() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+        assertFalse(list.removeValue(2));
+    }
+}
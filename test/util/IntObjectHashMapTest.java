@@ -0,0 +1,114 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    private static void assertSameContent(Map<Integer, String> expected, IntObjectHashMap<String> map) {
+        map.checkInvariants();
+        assertEquals(expected.size(), map.size(), "Размер таблицы");
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "Значение по ключу " + entry.getKey());
+        }
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(), keys);
+        List<String> values = new ArrayList<>(map.values());
+        List<String> expectedValues = new ArrayList<>(expected.values());
+        values.sort(null);
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values);
+    }
+
+    private static void runRandomSequence(Random random, int keyRange, int steps) {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(1);
+        Map<Integer, String> expected = new HashMap<>();
+
+        for (int step = 0; step < steps; step++) {
+            int key = random.nextInt(keyRange);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                String value = "v" + step;
+                assertEquals(expected.put(key, value), map.put(key, value), "Шаг " + step + ": результат put");
+            } else if (operation < 9) {
+                assertEquals(expected.remove(key), map.remove(key), "Шаг " + step + ": результат remove");
+            } else {
+                assertEquals(expected.containsKey(key), map.containsKey(key), "Шаг " + step + ": containsKey");
+            }
+            assertEquals(expected.get(key), map.get(key), "Шаг " + step + ": значение по ключу " + key);
+            if (step % 200 == 0) {
+                assertSameContent(expected, map);
+            }
+        }
+        assertSameContent(expected, map);
+    }
+
+    @Test
+    void shouldMatchHashMapOnRandomKeys() {
+        runRandomSequence(new Random(5), Integer.MAX_VALUE, 20_000);
+        runRandomSequence(new Random(6), 1_000, 20_000);
+    }
+
+    @Test
+    void shouldMatchHashMapOnSequentialIdsInsideOneCluster() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(1);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int id = 1; id <= 5_000; id++) {
+            map.put(id, "v" + id);
+            expected.put(id, "v" + id);
+        }
+        assertSameContent(expected, map);
+
+        // Удаления из середины кластера и поиск отсутствующих ключей рядом с ним.
+        for (int id = 2; id <= 5_000; id += 3) {
+            assertEquals(expected.remove(id), map.remove(id));
+            map.checkInvariants();
+        }
+        for (int id = 2; id <= 5_000; id += 3) {
+            assertFalse(map.containsKey(id), "Удалённый ключ " + id + " не должен находиться");
+            assertNull(map.remove(id), "Повторное удаление должно вернуть null");
+        }
+        assertNull(map.remove(-1));
+        assertNull(map.remove(10_000));
+        assertSameContent(expected, map);
+    }
+
+    @Test
+    void shouldGrowFromSmallCapacityAndClear() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(1);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            int key = i * 65_536;
+            map.put(key, "v" + i);
+            expected.put(key, "v" + i);
+            map.checkInvariants();
+        }
+        assertSameContent(expected, map);
+
+        map.clear();
+        expected.clear();
+        assertTrue(map.isEmpty());
+        assertSameContent(expected, map);
+
+        map.put(7, "снова");
+        assertEquals("снова", map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldRejectNullValue() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+        assertTrue(map.isEmpty());
+    }
+}